@@ -0,0 +1,56 @@
+package io.nio;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多线程追加短消息: 每次调用打开关闭文件的 NioFileOperator.write 与 BatchAppender 在不同持久化方式下的对比;
+ * Throughput 给出吞吐量, SampleTime 给出从追加到 future 完成的延迟分布
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AppendBenchmark {
+
+    static final String MESSAGE = "2020-02-21 17:52:00.000 INFO  [main] io.nio.AppendBenchmark - appended one line of log\n";
+
+    @Param({"NONE", "PERIODIC", "BATCH"})
+    BatchAppender.Durability durability;
+
+    Path path;
+
+    BatchAppender appender;
+
+    @Setup
+    public void setUp() throws IOException {
+        path = Files.createTempFile("append", ".log");
+        appender = BatchAppender.open(path, durability);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        appender.close();
+        Files.delete(path);
+    }
+
+    /**
+     * 基线, 与 durability 无关
+     */
+    @Benchmark
+    public void nioWrite() {
+        NioFileOperator.write(path.toString(), MESSAGE);
+    }
+
+    @Benchmark
+    public void appender() {
+        appender.append(MESSAGE).join();
+    }
+}
@@ -0,0 +1,121 @@
+package io.nio;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个线程读取文件中随机位置的 4KB: 阻塞读取逐个完成, AsyncFileOperator 同时发出最多 inFlight 个读取;
+ * 每次调用读取 {@link #READS} 次
+ * <p>
+ * 文件在 setUp 中生成, 通常位于页缓存中; 需要测量磁盘时在 setUp 后清空页缓存
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AsyncReadBenchmark {
+
+    static final int READS = 1024;
+
+    static final int BLOCK = 4096;
+
+    /**
+     * 文件大小, 单位 MB
+     */
+    @Param({"256"})
+    int size;
+
+    @Param({"1", "16", "64", "256"})
+    int inFlight;
+
+    Path path;
+
+    long[] positions;
+
+    RandomAccessFile file;
+
+    FileChannel channel;
+
+    AsyncFileOperator async;
+
+    @Setup
+    public void setUp() throws IOException {
+        path = TestFiles.lines(size * (1L << 20));
+        Random random = new Random(42);
+        positions = new long[READS];
+        for (int i = 0; i < READS; i++) {
+            positions[i] = (long) random.nextInt(size * (1 << 20) / BLOCK) * BLOCK;
+        }
+        file = new RandomAccessFile(path.toFile(), "r");
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        async = AsyncFileOperator.open(path, inFlight);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        async.close();
+        channel.close();
+        file.close();
+        Files.delete(path);
+    }
+
+    /**
+     * 基线, 与 inFlight 无关
+     */
+    @Benchmark
+    public long randomAccessFile() throws IOException {
+        byte[] block = new byte[BLOCK];
+        long sum = 0;
+        for (long position : positions) {
+            file.seek(position);
+            file.readFully(block);
+            sum += block[0];
+        }
+        return sum;
+    }
+
+    /**
+     * 基线, 与 inFlight 无关
+     */
+    @Benchmark
+    public long fileChannel() throws IOException {
+        ByteBuffer block = ByteBuffer.allocateDirect(BLOCK);
+        long sum = 0;
+        for (long position : positions) {
+            block.clear();
+            while (block.hasRemaining()) {
+                if (channel.read(block, position + block.position()) < 0) {
+                    break;
+                }
+            }
+            sum += block.get(0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long async() {
+        CompletableFuture<?>[] reads = new CompletableFuture<?>[READS];
+        for (int i = 0; i < READS; i++) {
+            reads[i] = async.read(positions[i], BLOCK);
+        }
+        CompletableFuture.allOf(reads).join();
+        long sum = 0;
+        for (CompletableFuture<?> read : reads) {
+            sum += ((ByteBuffer) read.join()).get(0);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,91 @@
+package io.nio;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 单线程逐行读取与 ChunkedFileProcessor 按并行度分块处理的对比, 统计行数;
+ * 文件在 setUp 中生成, 测试时位于页缓存中
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ChunkedBenchmark {
+
+    /**
+     * 文件大小, 单位 MB
+     */
+    @Param({"256"})
+    int size;
+
+    @Param({"1", "2", "4", "8"})
+    int parallelism;
+
+    Path path;
+
+    ForkJoinPool pool;
+
+    ChunkedFileProcessor processor;
+
+    @Setup
+    public void setUp() throws IOException {
+        path = TestFiles.lines(size * (1L << 20));
+        pool = new ForkJoinPool(parallelism);
+        processor = new ChunkedFileProcessor(path, 0, pool);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        Files.delete(path);
+    }
+
+    /**
+     * 基线, 与 parallelism 无关
+     */
+    @Benchmark
+    public long lineReader() throws IOException {
+        long[] count = new long[1];
+        try (LineReader reader = LineReader.open(path, StandardCharsets.UTF_8)) {
+            reader.forEach(line -> count[0]++);
+        }
+        return count[0];
+    }
+
+    /**
+     * 每块通过带位置的读取解码为行
+     */
+    @Benchmark
+    public long collectLines() throws IOException {
+        return processor.collectLines(StandardCharsets.UTF_8, CharSequence::length, Collectors.counting());
+    }
+
+    /**
+     * 每块映射后直接统计换行符, 不解码
+     */
+    @Benchmark
+    public long countNewlines() throws IOException {
+        return processor.process(0L, ChunkedBenchmark::newlines, Long::sum);
+    }
+
+    private static long newlines(ByteBuffer chunk) {
+        long count = 0;
+        for (int i = chunk.position(); i < chunk.limit(); i++) {
+            if (chunk.get(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
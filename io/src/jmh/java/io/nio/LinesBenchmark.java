@@ -0,0 +1,67 @@
+package io.nio;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 逐行处理整个文件: BufferedReader 为每行创建 String 与 LineReader 复用缓冲区的视图的对比, 配合 -prof gc 查看分配量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LinesBenchmark {
+
+    /**
+     * 文件大小, 单位 MB
+     */
+    @Param({"1", "100"})
+    int size;
+
+    Path path;
+
+    @Setup
+    public void setUp() throws IOException {
+        path = TestFiles.lines(size * (1L << 20));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(path);
+    }
+
+    @Benchmark
+    public void bufferedReader(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                blackhole.consume(line.charAt(0));
+            }
+        }
+    }
+
+    @Benchmark
+    public void lineReader(Blackhole blackhole) throws IOException {
+        try (LineReader reader = LineReader.open(path, StandardCharsets.UTF_8)) {
+            reader.forEach(line -> blackhole.consume(line.charAt(0)));
+        }
+    }
+
+    /**
+     * 需要保留每一行时的开销
+     */
+    @Benchmark
+    public void lineReaderToString(Blackhole blackhole) throws IOException {
+        try (LineReader reader = LineReader.open(path, StandardCharsets.UTF_8)) {
+            reader.forEach(line -> blackhole.consume(line.toString()));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.nio;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 逐行遍历整个文件: BufferedReader 解码每一行与直接在映射的内存中查找换行符的对比, 包括超过 2GB 需要分段映射的文件
+ * <p>
+ * 文件在 setUp 中生成, 2560MB 的文件需要相应的磁盘空间
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+public class MappedScanBenchmark {
+
+    /**
+     * 文件大小, 单位 MB
+     */
+    @Param({"1", "100", "2560"})
+    int size;
+
+    Path path;
+
+    @Setup
+    public void setUp() throws IOException {
+        path = TestFiles.lines(size * (1L << 20));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(path);
+    }
+
+    @Benchmark
+    public long bufferedReaderLines() throws IOException {
+        long lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            while (reader.readLine() != null) {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    @Benchmark
+    public long mappedLines() throws IOException {
+        long lines = 0;
+        try (MappedFile file = MappedFile.open(path)) {
+            for (int i = 0; i < file.segmentCount(); i++) {
+                ByteBuffer segment = file.segment(i);
+                for (int j = 0; j < segment.limit(); j++) {
+                    if (segment.get(j) == '\n') {
+                        lines++;
+                    }
+                }
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,50 @@
+package io.nio;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读取整个文件为 String: BufferedReader 逐行拼接与内存映射后一次解码的对比
+ * <p>
+ * 超过 2GB 的文件无法放入一个 String, 见 {@link MappedScanBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReadBenchmark {
+
+    /**
+     * 文件大小, 单位 MB
+     */
+    @Param({"1", "100"})
+    int size;
+
+    String path;
+
+    @Setup
+    public void setUp() throws IOException {
+        path = TestFiles.lines(size * (1L << 20)).toString();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(Path.of(path));
+    }
+
+    @Benchmark
+    public String read() {
+        return NioFileOperator.read(path);
+    }
+
+    @Benchmark
+    public String readMapped() {
+        return NioFileOperator.readMapped(path);
+    }
+}
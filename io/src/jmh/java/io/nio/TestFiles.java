@@ -0,0 +1,37 @@
+package io.nio;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * 基准测试使用的文本文件, 每行 80 个以内的 ASCII 字符
+ */
+final class TestFiles {
+
+    private TestFiles() {
+    }
+
+    static Path lines(long size) throws IOException {
+        Path file = Files.createTempFile("lines", ".txt");
+        Random random = new Random(42);
+        byte[] line = new byte[81];
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 20)) {
+            long written = 0;
+            while (written < size) {
+                int length = 1 + random.nextInt(80);
+                for (int i = 0; i < length; i++) {
+                    line[i] = (byte) ('a' + random.nextInt(26));
+                }
+                line[length] = '\n';
+                int count = (int) Math.min(length + 1, size - written);
+                out.write(line, 0, count);
+                written += count;
+            }
+        }
+        return file;
+    }
+}
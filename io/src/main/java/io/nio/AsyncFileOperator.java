@@ -0,0 +1,202 @@
+package io.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 按字节范围异步读写文件, 调用方不阻塞, 结果通过 CompletableFuture 返回
+ * <p>
+ * 同时进行的操作不超过 maxInFlight 个, 超出的操作进入队列, 在前面的操作完成后依次开始;
+ * future 在 AsynchronousFileChannel 的线程池中完成, 后续的回调不应阻塞
+ */
+public final class AsyncFileOperator implements AutoCloseable {
+
+    private final AsynchronousFileChannel channel;
+
+    private final Semaphore permits;
+
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    AsyncFileOperator(AsynchronousFileChannel channel, int maxInFlight) {
+        this.channel = channel;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * @param options 为空时只读打开
+     */
+    public static AsyncFileOperator open(Path path, int maxInFlight, OpenOption... options) throws IOException {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("max in flight must be positive: " + maxInFlight);
+        }
+        AsynchronousFileChannel channel = options.length == 0
+            ? AsynchronousFileChannel.open(path, StandardOpenOption.READ)
+            : AsynchronousFileChannel.open(path, options);
+        return new AsyncFileOperator(channel, maxInFlight);
+    }
+
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * @return 从 position 开始的 length 个字节, 已切换为读模式; 到达文件末尾时可能少于 length
+     */
+    public CompletableFuture<ByteBuffer> read(long position, int length) {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        return read(buffer, position).thenApply(count -> buffer.flip());
+    }
+
+    /**
+     * 读满 target 或到达文件末尾为止
+     *
+     * @return 读取的字节数
+     */
+    public CompletableFuture<Integer> read(ByteBuffer target, long position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("negative position: " + position);
+        }
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        submit(() -> new Read(target, position, future).start());
+        return future;
+    }
+
+    /**
+     * 写入 data 的全部剩余字节, 完成前不能修改 data
+     */
+    public CompletableFuture<Void> write(ByteBuffer data, long position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("negative position: " + position);
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        submit(() -> new Write(data, position, future).start());
+        return future;
+    }
+
+    /**
+     * 先入队再尝试取得许可; 操作完成时归还许可并再次检查队列, 两边都检查保证入队的操作不会被遗漏
+     */
+    private void submit(Runnable operation) {
+        waiting.offer(operation);
+        startWaiting();
+    }
+
+    private void startWaiting() {
+        while (!waiting.isEmpty() && permits.tryAcquire()) {
+            Runnable next = waiting.poll();
+            if (next == null) {
+                permits.release();
+            } else {
+                next.run();
+            }
+        }
+    }
+
+    private void finished() {
+        permits.release();
+        startWaiting();
+    }
+
+    /**
+     * 关闭后未完成的操作以 AsynchronousCloseException 失败, 队列中尚未开始的操作以 ClosedChannelException 失败
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 一次读取可能只读到一部分, 在回调中从新的位置继续
+     */
+    private final class Read implements CompletionHandler<Integer, Void> {
+        private final ByteBuffer target;
+
+        private final CompletableFuture<Integer> future;
+
+        private long position;
+
+        private int total;
+
+        Read(ByteBuffer target, long position, CompletableFuture<Integer> future) {
+            this.target = target;
+            this.position = position;
+            this.future = future;
+        }
+
+        void start() {
+            try {
+                channel.read(target, position, null, this);
+            } catch (RuntimeException e) {
+                failed(e, null);
+            }
+        }
+
+        @Override
+        public void completed(Integer count, Void attachment) {
+            if (count > 0) {
+                total += count;
+                position += count;
+                if (target.hasRemaining()) {
+                    start();
+                    return;
+                }
+            }
+            finished();
+            future.complete(total);
+        }
+
+        @Override
+        public void failed(Throwable error, Void attachment) {
+            finished();
+            future.completeExceptionally(error);
+        }
+    }
+
+    private final class Write implements CompletionHandler<Integer, Void> {
+        private final ByteBuffer data;
+
+        private final CompletableFuture<Void> future;
+
+        private long position;
+
+        Write(ByteBuffer data, long position, CompletableFuture<Void> future) {
+            this.data = data;
+            this.position = position;
+            this.future = future;
+        }
+
+        void start() {
+            try {
+                channel.write(data, position, null, this);
+            } catch (RuntimeException e) {
+                failed(e, null);
+            }
+        }
+
+        @Override
+        public void completed(Integer count, Void attachment) {
+            position += count;
+            if (data.hasRemaining()) {
+                start();
+                return;
+            }
+            finished();
+            future.complete(null);
+        }
+
+        @Override
+        public void failed(Throwable error, Void attachment) {
+            finished();
+            future.completeExceptionally(error);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package io.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 长期打开的追加写入, 多个线程的写入先进入无锁队列, 由一个写线程合并为一次 gathering write 提交
+ * <p>
+ * 每次追加返回的 future 在所在的批次写入文件后完成, {@link Durability#BATCH} 时还要等到 force 之后;
+ * 同一线程的写入按调用顺序出现在文件中
+ * <p>
+ * 队列没有上限, 写入速度超过磁盘时调用方需要等待 future 控制积压
+ * <p>
+ * force 失败后无法确定之前写入的数据是否落盘, 之后的追加都以该异常失败, close 时也会抛出
+ */
+public final class BatchAppender implements AutoCloseable {
+
+    /**
+     * 一次 gathering write 最多的缓冲区个数, 与 Linux 的 IOV_MAX 一致
+     */
+    private static final int MAX_BATCH = 1024;
+
+    private static final Duration DEFAULT_FORCE_INTERVAL = Duration.ofSeconds(1);
+
+    public enum Durability {
+        /**
+         * 只写入页缓存, 由操作系统决定何时落盘
+         */
+        NONE,
+        /**
+         * 有写入时按固定间隔 force, 宕机时最多丢失一个间隔内的数据
+         */
+        PERIODIC,
+        /**
+         * 每个批次 force 后才完成, 同一批次的写入共用一次 fsync
+         */
+        BATCH
+    }
+
+    private final FileChannel channel;
+
+    private final Durability durability;
+
+    private final long forceInterval;
+
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+
+    private final Thread writer;
+
+    private final ByteBuffer[] buffers = new ByteBuffer[MAX_BATCH];
+
+    private final Pending[] batch = new Pending[MAX_BATCH];
+
+    /**
+     * 写线程即将 park, 只有这时追加才需要 unpark
+     */
+    private volatile boolean waiting;
+
+    private volatile boolean closed;
+
+    /**
+     * 第一次 force 失败的异常, 由写线程设置
+     */
+    private volatile IOException forceFailure;
+
+    BatchAppender(FileChannel channel, Durability durability, Duration forceInterval, String name) {
+        this.channel = channel;
+        this.durability = durability;
+        this.forceInterval = forceInterval.toNanos();
+        this.writer = new Thread(this::run, "appender-" + name);
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public static BatchAppender open(Path path, Durability durability) throws IOException {
+        return open(path, durability, DEFAULT_FORCE_INTERVAL);
+    }
+
+    /**
+     * @param forceInterval 只用于 {@link Durability#PERIODIC}
+     */
+    public static BatchAppender open(Path path, Durability durability, Duration forceInterval) throws IOException {
+        if (forceInterval.isNegative() || forceInterval.isZero()) {
+            throw new IllegalArgumentException("force interval must be positive: " + forceInterval);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new BatchAppender(channel, durability, forceInterval, path.getFileName().toString());
+    }
+
+    public CompletableFuture<Void> append(String message) {
+        return append(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * future 完成前不能修改 data
+     */
+    public CompletableFuture<Void> append(ByteBuffer data) {
+        if (closed) {
+            throw new IllegalStateException("appender closed");
+        }
+        IOException failure = forceFailure;
+        if (failure != null) {
+            return CompletableFuture.failedFuture(failure);
+        }
+        Pending pending = new Pending(data);
+        queue.offer(pending);
+        // 与 close 并发时写线程可能已经退出, 仍在队列中的写入不会再被处理
+        if (closed && queue.remove(pending)) {
+            pending.future.completeExceptionally(new ClosedChannelException());
+        } else if (waiting) {
+            LockSupport.unpark(writer);
+        }
+        return pending.future;
+    }
+
+    private void run() {
+        long lastForce = System.nanoTime();
+        boolean dirty = false;
+        while (true) {
+            // 先读 closed 再取队列, 关闭前进入队列的写入都会被取到
+            boolean stop = closed;
+            int count = drain();
+            if (count > 0) {
+                // force 失败后不再写入, 之后的批次直接以同样的异常失败
+                IOException failure = forceFailure;
+                if (failure == null) {
+                    failure = write(count);
+                }
+                if (failure == null && durability == Durability.BATCH) {
+                    failure = force();
+                }
+                dirty |= failure == null && durability == Durability.PERIODIC;
+                complete(count, failure);
+            }
+            // 持续有写入时写线程不会空闲, 每个批次之后也要检查间隔
+            long now = System.nanoTime();
+            if (dirty && now - lastForce >= forceInterval) {
+                force();
+                lastForce = now;
+                dirty = false;
+            }
+            if (count > 0) {
+                continue;
+            }
+            if (stop) {
+                break;
+            }
+            waiting = true;
+            if (queue.isEmpty() && !closed) {
+                if (dirty) {
+                    LockSupport.parkNanos(this, forceInterval - (now - lastForce));
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+            waiting = false;
+        }
+        if (durability != Durability.NONE && forceFailure == null) {
+            force();
+        }
+    }
+
+    private int drain() {
+        int count = 0;
+        Pending pending;
+        while (count < MAX_BATCH && (pending = queue.poll()) != null) {
+            batch[count] = pending;
+            buffers[count] = pending.data;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 一次 write 可能只写入一部分, 重复写入直到所有缓冲区写完
+     */
+    private IOException write(int count) {
+        try {
+            int offset = 0;
+            while (offset < count) {
+                channel.write(buffers, offset, count - offset);
+                while (offset < count && !buffers[offset].hasRemaining()) {
+                    offset++;
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            return e;
+        }
+    }
+
+    /**
+     * 失败时记录在 forceFailure 中
+     */
+    private IOException force() {
+        try {
+            channel.force(false);
+            return null;
+        } catch (IOException e) {
+            if (forceFailure == null) {
+                forceFailure = e;
+            }
+            return e;
+        }
+    }
+
+    private void complete(int count, IOException failure) {
+        for (int i = 0; i < count; i++) {
+            if (failure == null) {
+                batch[i].future.complete(null);
+            } else {
+                batch[i].future.completeExceptionally(failure);
+            }
+            batch[i] = null;
+            buffers[i] = null;
+        }
+    }
+
+    /**
+     * 写完已经提交的写入后关闭文件, 除 {@link Durability#NONE} 外关闭前 force 一次
+     *
+     * @throws IOException 关闭前或之前的某次 force 失败
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+        IOException failure = forceFailure;
+        if (failure != null) {
+            throw new IOException("force failed", failure);
+        }
+    }
+
+    private static final class Pending {
+        final ByteBuffer data;
+
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Pending(ByteBuffer data) {
+            this.data = data;
+        }
+    }
+}
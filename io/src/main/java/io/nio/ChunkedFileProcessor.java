@@ -0,0 +1,245 @@
+package io.nio;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * 把文件按行边界切分为多个字节范围, 在 ForkJoinPool 中并行处理, 再按文件中的顺序合并每块的结果
+ * <p>
+ * 每块从换行符之后开始, 到下一块之前的换行符结束, 一行不会被拆到两块中; \r\n 不会被拆开,
+ * 单独的 \r 作为换行符时只在块内识别
+ * <p>
+ * 所有块共享同一个 FileChannel, 通过带位置的读取或映射访问, 互不影响读取位置
+ */
+public final class ChunkedFileProcessor {
+
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+
+    private static final int LINE_BUFFER_SIZE = 1 << 16;
+
+    private final Path path;
+
+    private final int chunkSize;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * 使用公共 ForkJoinPool, 块的大小按文件大小和并行度计算
+     */
+    public ChunkedFileProcessor(Path path) {
+        this(path, 0, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param chunkSize 每块的大致字节数, 实际边界向后对齐到换行符; 为 0 时每个线程约分到 4 块, 每块不少于 1MB
+     */
+    public ChunkedFileProcessor(Path path, int chunkSize, ForkJoinPool pool) {
+        if (chunkSize < 0) {
+            throw new IllegalArgumentException("negative chunk size: " + chunkSize);
+        }
+        this.path = path;
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+    }
+
+    /**
+     * 每块映射为只读的 ByteBuffer 交给 mapper, 不复制内容
+     *
+     * @param identity 空文件的结果, 也是 reducer 的单位元
+     */
+    public <R> R process(R identity, Function<? super ByteBuffer, ? extends R> mapper, BinaryOperator<R> reducer) throws IOException {
+        return run(identity, (channel, chunk) -> mapper.apply(channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.length())), reducer);
+    }
+
+    /**
+     * 每块用单独的 {@link LineReader} 通过带位置的读取逐行解码, 每块的结果由 collector 的 combiner 按顺序合并
+     * <p>
+     * 行是复用缓冲区上的视图, 先交给 mapper 转换, 只有 mapper 的结果传给 collector; 需要保留行本身时使用 toString
+     *
+     * @param charset 块的边界按字节 \n 对齐, 只支持换行符编码为单个 ASCII 字节的字符集, 例如 UTF-8 和 ISO-8859-1;
+     *                UTF-16 等字符集抛出 IllegalArgumentException
+     */
+    public <T, A, R> R collectLines(Charset charset, Function<? super CharSequence, ? extends T> mapper,
+                                    Collector<? super T, A, R> collector) throws IOException {
+        if (!isAsciiCompatible(charset)) {
+            throw new IllegalArgumentException("charset not ASCII compatible: " + charset);
+        }
+        A result = run(collector.supplier().get(), (channel, chunk) -> {
+            A container = collector.supplier().get();
+            try (LineReader reader = new LineReader(new RangeChannel(channel, chunk), charset, LINE_BUFFER_SIZE)) {
+                reader.forEach(line -> collector.accumulator().accept(container, mapper.apply(line)));
+            }
+            return container;
+        }, collector.combiner());
+        return collector.finisher().apply(result);
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        return charset.canEncode() && Arrays.equals("\r\n".getBytes(charset), new byte[]{'\r', '\n'});
+    }
+
+    private <R> R run(R identity, ChunkMapper<R> mapper, BinaryOperator<R> reducer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<Chunk> chunks = split(channel);
+            if (chunks.isEmpty()) {
+                return identity;
+            }
+            return pool.invoke(new ChunkTask<>(channel, chunks, 0, chunks.size(), mapper, reducer));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 先按大小等分, 再把每个边界移到其后第一个换行符之后
+     */
+    private List<Chunk> split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long target = chunkSize > 0 ? chunkSize
+            : Math.max(MIN_CHUNK_SIZE, Math.min(Integer.MAX_VALUE / 2, size / (pool.getParallelism() * 4L)));
+        List<Chunk> chunks = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long start = 0;
+        while (start < size) {
+            long end = start + target >= size ? size : lineEnd(channel, start + target - 1, buffer);
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * @return from 之后(包括 from)第一个 \n 的下一个位置, 没有时为文件末尾
+     */
+    private static long lineEnd(FileChannel channel, long from, ByteBuffer buffer) throws IOException {
+        long position = from;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    private record Chunk(long start, long end) {
+        /**
+         * 超过 2GB 的行无法映射为一块
+         */
+        int length() {
+            return Math.toIntExact(end - start);
+        }
+    }
+
+    private interface ChunkMapper<R> {
+        R apply(FileChannel channel, Chunk chunk) throws IOException;
+    }
+
+    /**
+     * 二分块的范围, 左右两半并行处理, 左半的结果在前
+     */
+    private static final class ChunkTask<R> extends RecursiveTask<R> {
+        private final FileChannel channel;
+
+        private final List<Chunk> chunks;
+
+        private final int from;
+
+        private final int to;
+
+        private final ChunkMapper<R> mapper;
+
+        private final BinaryOperator<R> reducer;
+
+        ChunkTask(FileChannel channel, List<Chunk> chunks, int from, int to, ChunkMapper<R> mapper, BinaryOperator<R> reducer) {
+            this.channel = channel;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.mapper = mapper;
+            this.reducer = reducer;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from == 1) {
+                try {
+                    return mapper.apply(channel, chunks.get(from));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask<R> right = new ChunkTask<>(channel, chunks, middle, to, mapper, reducer);
+            right.fork();
+            R left = new ChunkTask<>(channel, chunks, from, middle, mapper, reducer).compute();
+            return reducer.apply(left, right.join());
+        }
+    }
+
+    /**
+     * FileChannel 中一段范围的只读视图, 通过带位置的读取访问, 关闭时不关闭 FileChannel
+     */
+    private static final class RangeChannel implements ReadableByteChannel {
+        private final FileChannel channel;
+
+        private long position;
+
+        private final long end;
+
+        RangeChannel(FileChannel channel, Chunk chunk) {
+            this.channel = channel;
+            this.position = chunk.start;
+            this.end = chunk.end;
+        }
+
+        @Override
+        public int read(ByteBuffer target) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int limit = target.limit();
+            if (target.remaining() > end - position) {
+                target.limit(target.position() + (int) (end - position));
+            }
+            try {
+                int read = channel.read(target, position);
+                if (read > 0) {
+                    position += read;
+                }
+                return read;
+            } finally {
+                target.limit(limit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package io.nio;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 逐行读取, 内存占用与文件大小无关
+ * <p>
+ * 字节缓冲区和字符缓冲区在整个读取过程中复用, 只有超过字符缓冲区的长行才会扩容;
+ * 每一行是字符缓冲区上的视图, 只在下一次读取之前有效, 需要保留时调用 toString 复制
+ * <p>
+ * 与 BufferedReader.readLine 一致, \r, \n 和 \r\n 都是换行符, 行中不包含换行符
+ */
+public final class LineReader implements AutoCloseable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+
+    private final CharsetDecoder decoder;
+
+    private final ByteBuffer bytes;
+
+    /**
+     * 读模式, [position, limit) 是尚未返回的字符
+     */
+    private CharBuffer chars;
+
+    private final Line line = new Line();
+
+    private boolean endOfFile;
+
+    private boolean endOfInput;
+
+    /**
+     * 上一行以 \r 结束, 紧跟的 \n 属于同一个换行符
+     */
+    private boolean skipLineFeed;
+
+    public LineReader(ReadableByteChannel channel, Charset charset, int bufferSize) {
+        this.channel = channel;
+        this.decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocateDirect(bufferSize);
+        this.chars = CharBuffer.allocate(bufferSize).flip();
+    }
+
+    public static LineReader open(Path path, Charset charset) throws IOException {
+        return new LineReader(FileChannel.open(path, StandardOpenOption.READ), charset, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @return 下一行的视图, 没有更多行时返回 null
+     */
+    public CharSequence next() throws IOException {
+        while (true) {
+            char[] array = chars.array();
+            int start = chars.position();
+            int end = chars.limit();
+            if (skipLineFeed && start < end) {
+                skipLineFeed = false;
+                if (array[start] == '\n') {
+                    start++;
+                }
+            }
+            for (int i = start; i < end; i++) {
+                char c = array[i];
+                if (c == '\n' || c == '\r') {
+                    skipLineFeed = c == '\r';
+                    chars.position(i + 1);
+                    return line.set(array, start, i - start);
+                }
+            }
+            chars.position(start);
+            if (endOfInput) {
+                if (start == end) {
+                    return null;
+                }
+                chars.position(end);
+                return line.set(array, start, end - start);
+            }
+            fill();
+        }
+    }
+
+    /**
+     * 依次处理每一行, 传给 action 的视图在 action 返回后失效
+     */
+    public void forEach(Consumer<? super CharSequence> action) throws IOException {
+        for (CharSequence current = next(); current != null; current = next()) {
+            action.accept(current);
+        }
+    }
+
+    /**
+     * 顺序流, 每个元素在流推进到下一个元素前有效, 关闭流时关闭文件
+     */
+    public Stream<CharSequence> lines() {
+        Spliterator<CharSequence> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super CharSequence> action) {
+                try {
+                    CharSequence current = next();
+                    if (current == null) {
+                        return false;
+                    }
+                    action.accept(current);
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * 把未返回的字符移到缓冲区开头, 再读取并解码一批字节; 一行超过字符缓冲区时扩容
+     */
+    private void fill() throws IOException {
+        chars.compact();
+        if (!chars.hasRemaining()) {
+            chars = CharBuffer.allocate(chars.capacity() * 2).put(chars.flip());
+        }
+        if (!endOfFile && channel.read(bytes) < 0) {
+            endOfFile = true;
+        }
+        bytes.flip();
+        CoderResult result = decoder.decode(bytes, chars, endOfFile);
+        bytes.compact();
+        if (endOfFile && result.isUnderflow() && decoder.flush(chars).isUnderflow()) {
+            endOfInput = true;
+        }
+        chars.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 字符缓冲区上的一段, 每次读取后指向新的一行
+     */
+    private static final class Line implements CharSequence {
+        private char[] array;
+
+        private int offset;
+
+        private int length;
+
+        Line set(char[] array, int offset, int length) {
+            this.array = array;
+            this.offset = offset;
+            this.length = length;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return array[offset + index];
+        }
+
+        /**
+         * 复制为 String, 不依赖于缓冲区
+         */
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("[" + start + ", " + end + ") out of length " + length);
+            }
+            return new String(array, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(array, offset, length);
+        }
+    }
+}
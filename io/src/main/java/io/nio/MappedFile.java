@@ -0,0 +1,153 @@
+package io.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 只读映射到内存的文件
+ * <p>
+ * 单个 MappedByteBuffer 最多 2GB, 文件默认按 {@link #SEGMENT_SIZE} 分段映射, 按 long 位置访问;
+ * 内容不会复制到堆中, 只有调用 {@link #decode} 时才解码指定范围
+ * <p>
+ * 关闭后不能再映射新的文件, 已经取得的 ByteBuffer 在被回收前仍然可以读取
+ */
+public final class MappedFile implements AutoCloseable {
+
+    /**
+     * 每段 1GB, 段内的位置可以用 int 表示
+     */
+    public static final int SEGMENT_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer[] segments;
+
+    private final long size;
+
+    private final int segmentSize;
+
+    private MappedFile(FileChannel channel, MappedByteBuffer[] segments, long size, int segmentSize) {
+        this.channel = channel;
+        this.segments = segments;
+        this.size = size;
+        this.segmentSize = segmentSize;
+    }
+
+    public static MappedFile open(Path path) throws IOException {
+        return open(path, SEGMENT_SIZE);
+    }
+
+    /**
+     * @param segmentSize 每段的字节数, 测试中用较小的段验证跨段访问
+     */
+    static MappedFile open(Path path, int segmentSize) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + segmentSize - 1) / segmentSize)];
+            for (int i = 0; i < segments.length; i++) {
+                long position = (long) i * segmentSize;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segmentSize, size - position));
+            }
+            return new MappedFile(channel, segments, size, segmentSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public int segmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * @return 第 index 段的只读视图, 不复制内容
+     */
+    public ByteBuffer segment(int index) {
+        return segments[index].asReadOnlyBuffer();
+    }
+
+    public byte get(long position) {
+        checkRange(position, 1);
+        return segments[(int) (position / segmentSize)].get((int) (position % segmentSize));
+    }
+
+    /**
+     * @return 从 position 开始的 length 个字节; 范围在同一段内时是只读视图, 跨段时复制到新的缓冲区
+     */
+    public ByteBuffer slice(long position, int length) {
+        checkRange(position, length);
+        // 空文件或位置在文件末尾时没有对应的段
+        if (length == 0) {
+            return ByteBuffer.allocate(0);
+        }
+        int index = (int) (position / segmentSize);
+        int offset = (int) (position % segmentSize);
+        if (offset + length <= segments[index].limit()) {
+            return segments[index].slice(offset, length).asReadOnlyBuffer();
+        }
+        ByteBuffer copy = ByteBuffer.allocate(length);
+        while (copy.hasRemaining()) {
+            int count = Math.min(copy.remaining(), segments[index].limit() - offset);
+            copy.put(segments[index].slice(offset, count));
+            index++;
+            offset = 0;
+        }
+        return copy.flip();
+    }
+
+    /**
+     * @return 从 from 开始第一个等于 value 的位置, 没有时(包括 from 超过文件末尾)返回 -1
+     */
+    public long indexOf(byte value, long from) {
+        if (from < 0) {
+            throw new IndexOutOfBoundsException("negative position: " + from);
+        }
+        for (int index = (int) (from / segmentSize); index < segments.length; index++) {
+            MappedByteBuffer segment = segments[index];
+            int start = index == from / segmentSize ? (int) (from % segmentSize) : 0;
+            for (int i = start; i < segment.limit(); i++) {
+                if (segment.get(i) == value) {
+                    return (long) index * segmentSize + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 解码指定范围, 范围的边界截断多字节字符时, 被截断的字符替换为替换字符
+     */
+    public String decode(long position, int length, Charset charset) {
+        try {
+            return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(slice(position, length))
+                .toString();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void checkRange(long position, int length) {
+        if (position < 0 || length < 0 || position + length > size) {
+            throw new IndexOutOfBoundsException("range [" + position + ", " + (position + length) + ") out of size " + size);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
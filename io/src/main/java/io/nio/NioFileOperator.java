@@ -1,9 +1,10 @@
 package io.nio;
 
 import java.io.*;
-import java.nio.channels.FileChannel;
-import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.util.stream.Stream;
 
 /**
  * @Description
@@ -13,20 +14,82 @@ import java.nio.file.*;
 public class NioFileOperator {
 
     public static final String read(String pathString){
-        String result = "";
+        StringBuilder result = new StringBuilder();
         Path path = Paths.get(pathString);
         try(
-            BufferedReader reader = Files.newBufferedReader(path, Charset.forName("UTF-8"))){
+            BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)){
 
 
             String currentLine = null;
             while((currentLine = reader.readLine()) != null){
-                result += currentLine;
+                result.append(currentLine);
             }
         }catch(IOException ex){
             ex.printStackTrace(); //handle an exception here
         }
-        return result;
+        return result.toString();
+    }
+
+    /**
+     * 与 read 的结果相同, 但通过内存映射读取, 不经过 Reader 逐行解码, 文件内容只复制到一个数组中再整体解码
+     * <p>
+     * 结果需要放在一个 String 中, 文件不能超过 2GB; 更大的文件使用 {@link #map(String)} 按范围解码
+     */
+    public static final String readMapped(String pathString){
+        try (MappedFile file = map(pathString)) {
+            if (file.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("file too large for a String: " + pathString);
+            }
+            byte[] bytes = new byte[(int) file.size()];
+            int offset = 0;
+            for (int i = 0; i < file.segmentCount(); i++) {
+                ByteBuffer segment = file.segment(i);
+                int count = segment.remaining();
+                segment.get(bytes, offset, count);
+                offset += count;
+            }
+            // 与 readLine 一致, \r, \n 和 \r\n 都是换行符; UTF-8 的多字节字符中不会出现这两个字节, 解码前原地去掉
+            int length = 0;
+            for (byte value : bytes) {
+                if (value != '\n' && value != '\r') {
+                    bytes[length++] = value;
+                }
+            }
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        } catch(IOException ex){
+            ex.printStackTrace(); //handle an exception here
+        }
+        return "";
+    }
+
+    /**
+     * 逐行读取, 不把整个文件读入内存; 每一行是复用缓冲区上的视图, 在流推进到下一行前有效, 需要保留时调用 toString
+     * <p>
+     * 使用完后需要关闭返回的流
+     */
+    public static final Stream<CharSequence> lines(String pathString) throws IOException {
+        return LineReader.open(Paths.get(pathString), StandardCharsets.UTF_8).lines();
+    }
+
+    /**
+     * 只读映射整个文件, 超过 2GB 的文件分段映射, 由调用方关闭
+     */
+    public static final MappedFile map(String pathString) throws IOException {
+        return MappedFile.open(Paths.get(pathString));
+    }
+
+    /**
+     * 长期打开的追加写入, 多线程频繁追加时代替 write, 由调用方关闭
+     */
+    public static final BatchAppender appender(String pathString, BatchAppender.Durability durability) throws IOException {
+        return BatchAppender.open(Paths.get(pathString), durability);
+    }
+
+    /**
+     * 按字节范围异步读写, 同时进行的操作不超过 maxInFlight 个, 由调用方关闭
+     */
+    public static final AsyncFileOperator async(String pathString, int maxInFlight, OpenOption... options) throws IOException {
+        return AsyncFileOperator.open(Paths.get(pathString), maxInFlight, options);
     }
 
     public static final void write(String pathString, String message){
@@ -0,0 +1,277 @@
+package io.nio;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncFileOperatorTest {
+
+    @Nested
+    public class FileAccess {
+
+        Path file;
+
+        @BeforeEach
+        public void setUp() throws IOException {
+            file = Files.createTempFile("async", ".bin");
+        }
+
+        @AfterEach
+        public void tearDown() throws IOException {
+            Files.delete(file);
+        }
+
+        @Test
+        public void should_read_bytes_written_at_position() throws Exception {
+            try (AsyncFileOperator operator = AsyncFileOperator.open(file, 4, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                operator.write(ByteBuffer.wrap("hello".getBytes(StandardCharsets.US_ASCII)), 3).get(5, TimeUnit.SECONDS);
+
+                assertEquals(8, operator.size());
+                ByteBuffer read = operator.read(3, 5).get(5, TimeUnit.SECONDS);
+                assertEquals("hello", StandardCharsets.US_ASCII.decode(read).toString());
+            }
+        }
+
+        @Test
+        public void should_return_fewer_bytes_at_end_of_file() throws Exception {
+            Files.writeString(file, "abc");
+            try (AsyncFileOperator operator = AsyncFileOperator.open(file, 1)) {
+                assertEquals(2, operator.read(1, 10).get(5, TimeUnit.SECONDS).remaining());
+                assertEquals(0, operator.read(5, 10).get(5, TimeUnit.SECONDS).remaining());
+            }
+        }
+
+        @Test
+        public void should_throw_exception_if_max_in_flight_not_positive() {
+            assertThrows(IllegalArgumentException.class, () -> AsyncFileOperator.open(file, 0));
+        }
+
+        @Test
+        public void should_throw_exception_if_position_negative() throws IOException {
+            try (AsyncFileOperator operator = AsyncFileOperator.open(file, 1)) {
+                assertThrows(IllegalArgumentException.class, () -> operator.read(-1, 1));
+                assertThrows(IllegalArgumentException.class, () -> operator.write(ByteBuffer.allocate(1), -1));
+            }
+        }
+    }
+
+    @Nested
+    public class PartialTransfer {
+
+        @Test
+        public void should_continue_read_until_target_full() throws Exception {
+            FakeChannel channel = new FakeChannel("0123456789", 3);
+            AsyncFileOperator operator = new AsyncFileOperator(channel, 1);
+
+            ByteBuffer read = operator.read(1, 8).get(5, TimeUnit.SECONDS);
+
+            assertEquals("12345678", StandardCharsets.US_ASCII.decode(read).toString());
+            assertEquals(3, channel.calls);
+        }
+
+        @Test
+        public void should_stop_read_at_end_of_file_after_partial_reads() throws Exception {
+            FakeChannel channel = new FakeChannel("0123456789", 3);
+            AsyncFileOperator operator = new AsyncFileOperator(channel, 1);
+
+            ByteBuffer target = ByteBuffer.allocate(16);
+            assertEquals(6, (int) operator.read(target, 4).get(5, TimeUnit.SECONDS));
+            assertEquals("456789", new String(target.array(), 0, target.position(), StandardCharsets.US_ASCII));
+        }
+
+        @Test
+        public void should_continue_write_until_all_bytes_written() throws Exception {
+            FakeChannel channel = new FakeChannel("", 3);
+            AsyncFileOperator operator = new AsyncFileOperator(channel, 1);
+
+            operator.write(ByteBuffer.wrap("abcdefgh".getBytes(StandardCharsets.US_ASCII)), 2).get(5, TimeUnit.SECONDS);
+
+            assertEquals("\0\0abcdefgh", channel.content());
+            assertEquals(3, channel.calls);
+        }
+    }
+
+    @Nested
+    public class InFlightBound {
+
+        @Test
+        public void should_start_queued_operations_when_earlier_ones_complete() throws Exception {
+            FakeChannel channel = new FakeChannel("0123456789", 10);
+            channel.hold = true;
+            AsyncFileOperator operator = new AsyncFileOperator(channel, 2);
+
+            List<CompletableFuture<ByteBuffer>> reads = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                reads.add(operator.read(i, 1));
+            }
+
+            assertEquals(2, channel.held.size());
+            while (!channel.held.isEmpty()) {
+                channel.held.remove(0).run();
+                assertTrue(channel.held.size() <= 2);
+            }
+            for (int i = 0; i < 5; i++) {
+                assertEquals('0' + i, reads.get(i).get(5, TimeUnit.SECONDS).get());
+            }
+            assertEquals(2, channel.maxOutstanding);
+        }
+
+        @Test
+        public void should_release_permit_when_operation_failed() throws Exception {
+            FakeChannel channel = new FakeChannel("0123456789", 10);
+            channel.failure = new IOException("disk error");
+            AsyncFileOperator operator = new AsyncFileOperator(channel, 1);
+
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> operator.read(0, 1).get(5, TimeUnit.SECONDS));
+            assertSame(channel.failure, exception.getCause());
+
+            channel.failure = null;
+            assertEquals('0', operator.read(0, 1).get(5, TimeUnit.SECONDS).get());
+        }
+    }
+
+    /**
+     * 内存中的文件, 每次读写最多 step 个字节; hold 时操作暂不完成, 由测试逐个放行
+     */
+    static class FakeChannel extends AsynchronousFileChannel {
+        private byte[] content;
+
+        private final int step;
+
+        boolean hold;
+
+        IOException failure;
+
+        final List<Runnable> held = new ArrayList<>();
+
+        int calls;
+
+        int outstanding;
+
+        int maxOutstanding;
+
+        FakeChannel(String content, int step) {
+            this.content = content.getBytes(StandardCharsets.US_ASCII);
+            this.step = step;
+        }
+
+        String content() {
+            return new String(content, StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public <A> void read(ByteBuffer target, long position, A attachment, CompletionHandler<Integer, ? super A> handler) {
+            submit(attachment, handler, () -> {
+                if (position >= content.length) {
+                    return -1;
+                }
+                int count = Math.min(step, Math.min(target.remaining(), content.length - (int) position));
+                target.put(content, (int) position, count);
+                return count;
+            });
+        }
+
+        @Override
+        public <A> void write(ByteBuffer source, long position, A attachment, CompletionHandler<Integer, ? super A> handler) {
+            submit(attachment, handler, () -> {
+                int count = Math.min(step, source.remaining());
+                if (position + count > content.length) {
+                    content = Arrays.copyOf(content, (int) position + count);
+                }
+                source.get(content, (int) position, count);
+                return count;
+            });
+        }
+
+        private <A> void submit(A attachment, CompletionHandler<Integer, ? super A> handler, Transfer transfer) {
+            calls++;
+            outstanding++;
+            maxOutstanding = Math.max(maxOutstanding, outstanding);
+            Runnable completion = () -> {
+                outstanding--;
+                if (failure != null) {
+                    handler.failed(failure, attachment);
+                } else {
+                    handler.completed(transfer.run(), attachment);
+                }
+            };
+            if (hold) {
+                held.add(completion);
+            } else {
+                completion.run();
+            }
+        }
+
+        private interface Transfer {
+            int run();
+        }
+
+        @Override
+        public long size() {
+            return content.length;
+        }
+
+        @Override
+        public AsynchronousFileChannel truncate(long size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void force(boolean metaData) {
+        }
+
+        @Override
+        public <A> void lock(long position, long size, boolean shared, A attachment, CompletionHandler<FileLock, ? super A> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<FileLock> lock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<Integer> read(ByteBuffer target, long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<Integer> write(ByteBuffer source, long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package io.nio;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchAppenderTest {
+
+    Path file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        file = Files.createTempFile("appender", ".log");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Test
+    public void should_keep_appends_of_each_thread_in_call_order() throws Exception {
+        int threads = 4;
+        int messages = 2000;
+        try (BatchAppender appender = BatchAppender.open(file, BatchAppender.Durability.NONE)) {
+            List<Thread> writers = new ArrayList<>();
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                List<CompletableFuture<Void>> own = new ArrayList<>();
+                writers.add(new Thread(() -> {
+                    for (int i = 0; i < messages; i++) {
+                        own.add(appender.append(thread + ":" + i + "\n"));
+                    }
+                    synchronized (futures) {
+                        futures.addAll(own);
+                    }
+                }));
+            }
+            writers.forEach(Thread::start);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).get(10, TimeUnit.SECONDS);
+        }
+
+        Map<String, Integer> next = new HashMap<>();
+        for (String line : Files.readAllLines(file)) {
+            String[] parts = line.split(":");
+            int expected = next.getOrDefault(parts[0], 0);
+            assertEquals(expected, Integer.parseInt(parts[1]));
+            next.put(parts[0], expected + 1);
+        }
+        assertEquals(threads, next.size());
+        next.values().forEach(count -> assertEquals(messages, (int) count));
+    }
+
+    @Test
+    public void should_write_appends_before_batch_future_completes() throws Exception {
+        try (BatchAppender appender = BatchAppender.open(file, BatchAppender.Durability.BATCH)) {
+            appender.append("first\n").get(5, TimeUnit.SECONDS);
+
+            assertEquals("first\n", Files.readString(file));
+        }
+    }
+
+    @Test
+    public void should_write_all_appends_submitted_before_close() throws Exception {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        BatchAppender appender = BatchAppender.open(file, BatchAppender.Durability.PERIODIC);
+        for (int i = 0; i < 100; i++) {
+            futures.add(appender.append(i + "\n"));
+        }
+
+        appender.close();
+
+        for (CompletableFuture<Void> future : futures) {
+            assertTrue(future.isDone());
+            future.get();
+        }
+        assertEquals(100, Files.readAllLines(file).size());
+    }
+
+    @Test
+    public void should_throw_exception_if_append_after_close() throws IOException {
+        BatchAppender appender = BatchAppender.open(file, BatchAppender.Durability.NONE);
+        appender.close();
+
+        assertThrows(IllegalStateException.class, () -> appender.append("late\n"));
+    }
+
+    /**
+     * 与 close 并发的追加要么被拒绝, 要么 future 完成; 成功完成的都写入了文件
+     */
+    @Test
+    public void should_complete_every_append_racing_with_close() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            Files.write(file, new byte[0]);
+            BatchAppender appender = BatchAppender.open(file, BatchAppender.Durability.NONE);
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            CountDownLatch started = new CountDownLatch(1);
+            Thread writer = new Thread(() -> {
+                started.countDown();
+                try {
+                    for (int i = 0; ; i++) {
+                        futures.add(appender.append(i + "\n"));
+                    }
+                } catch (IllegalStateException closed) {
+                }
+            });
+            writer.start();
+            started.await();
+
+            appender.close();
+            writer.join();
+
+            int written = 0;
+            for (CompletableFuture<Void> future : futures) {
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                    written++;
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof ClosedChannelException);
+                }
+            }
+            assertEquals(written, Files.readAllLines(file).size());
+        }
+    }
+
+    @Nested
+    public class ForceFailure {
+
+        FailingForceChannel channel;
+
+        @BeforeEach
+        public void setUp() throws IOException {
+            channel = new FailingForceChannel(FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+        }
+
+        @Test
+        public void should_throw_exception_when_close_if_final_force_failed() throws Exception {
+            BatchAppender appender = new BatchAppender(channel, BatchAppender.Durability.PERIODIC, Duration.ofDays(1), "test");
+            appender.append("message\n").get(5, TimeUnit.SECONDS);
+
+            IOException exception = assertThrows(IOException.class, appender::close);
+            assertSame(FailingForceChannel.FAILURE, exception.getCause());
+        }
+
+        @Test
+        public void should_fail_appends_after_periodic_force_failed() throws Exception {
+            BatchAppender appender = new BatchAppender(channel, BatchAppender.Durability.PERIODIC, Duration.ofMillis(1), "test");
+            appender.append("message\n").get(5, TimeUnit.SECONDS);
+            assertTrue(channel.forced.await(5, TimeUnit.SECONDS));
+
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> appender.append("late\n").get(5, TimeUnit.SECONDS));
+            assertSame(FailingForceChannel.FAILURE, exception.getCause());
+            assertThrows(IOException.class, appender::close);
+            assertEquals("message\n", Files.readString(file));
+        }
+
+        @Test
+        public void should_fail_batch_if_force_failed() throws Exception {
+            BatchAppender appender = new BatchAppender(channel, BatchAppender.Durability.BATCH, Duration.ofDays(1), "test");
+
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> appender.append("message\n").get(5, TimeUnit.SECONDS));
+            assertSame(FailingForceChannel.FAILURE, exception.getCause());
+            assertThrows(IOException.class, appender::close);
+        }
+    }
+
+    /**
+     * 写入转给真实的文件, force 总是失败
+     */
+    static class FailingForceChannel extends FileChannel {
+        static final IOException FAILURE = new IOException("force failed");
+
+        final FileChannel delegate;
+
+        final CountDownLatch forced = new CountDownLatch(1);
+
+        FailingForceChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            forced.countDown();
+            throw FAILURE;
+        }
+
+        @Override
+        public long write(ByteBuffer[] sources, int offset, int length) throws IOException {
+            return delegate.write(sources, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            return delegate.write(source);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public int read(ByteBuffer target) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long read(ByteBuffer[] targets, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long position() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileChannel position(long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel source, long position, long count) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(ByteBuffer target, long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int write(ByteBuffer source, long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
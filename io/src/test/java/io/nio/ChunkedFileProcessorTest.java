@@ -0,0 +1,115 @@
+package io.nio;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkedFileProcessorTest {
+
+    Path file;
+
+    ForkJoinPool pool;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        file = Files.createTempFile("chunked", ".txt");
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        Files.delete(file);
+    }
+
+    private static List<String> chunks(ChunkedFileProcessor processor) throws IOException {
+        return processor.process(List.of(), chunk -> List.of(StandardCharsets.UTF_8.decode(chunk).toString()), (left, right) -> {
+            List<String> result = new ArrayList<>(left);
+            result.addAll(right);
+            return result;
+        });
+    }
+
+    @Test
+    public void should_align_chunk_boundaries_after_line_feed() throws IOException {
+        String content = IntStream.range(0, 200).mapToObj(i -> "line-" + "x".repeat(i % 17) + "\n").collect(Collectors.joining());
+        Files.writeString(file, content);
+
+        List<String> chunks = chunks(new ChunkedFileProcessor(file, 64, pool));
+
+        assertTrue(chunks.size() > 1);
+        assertEquals(content, String.join("", chunks));
+        chunks.subList(0, chunks.size() - 1).forEach(chunk -> assertTrue(chunk.endsWith("\n"), chunk));
+    }
+
+    @Test
+    public void should_extend_chunk_over_line_longer_than_chunk_size() throws IOException {
+        String longLine = "y".repeat(1000);
+        Files.writeString(file, "a\n" + longLine + "\nb\n");
+
+        assertEquals(List.of("a", longLine, "b"), new ChunkedFileProcessor(file, 4, pool)
+            .collectLines(StandardCharsets.UTF_8, CharSequence::toString, Collectors.toList()));
+    }
+
+    @Test
+    public void should_not_split_crlf_at_chunk_boundary() throws IOException {
+        Files.writeString(file, "a\r\nb\r\nc");
+
+        List<String> chunks = chunks(new ChunkedFileProcessor(file, 2, pool));
+
+        assertEquals(List.of("a\r\n", "b\r\n", "c"), chunks);
+        assertEquals(List.of("a", "b", "c"), new ChunkedFileProcessor(file, 2, pool)
+            .collectLines(StandardCharsets.UTF_8, CharSequence::toString, Collectors.toList()));
+    }
+
+    @Test
+    public void should_collect_lines_in_file_order() throws IOException {
+        List<String> lines = IntStream.range(0, 5000).mapToObj(i -> "第" + i + "行").toList();
+        Files.write(file, lines, StandardCharsets.UTF_8);
+
+        List<String> collected = new ChunkedFileProcessor(file, 256, pool)
+            .collectLines(StandardCharsets.UTF_8, CharSequence::toString, Collectors.toList());
+
+        assertEquals(lines, collected);
+    }
+
+    @Test
+    public void should_apply_mapper_before_line_view_is_reused() throws IOException {
+        Files.writeString(file, "first\nsecond\nthird\n");
+
+        List<Integer> lengths = new ChunkedFileProcessor(file, 0, pool)
+            .collectLines(StandardCharsets.UTF_8, CharSequence::length, Collectors.toList());
+
+        assertEquals(List.of(5, 6, 5), lengths);
+    }
+
+    @Test
+    public void should_throw_exception_if_charset_not_ascii_compatible() throws IOException {
+        Files.writeString(file, "a\nb\n", StandardCharsets.UTF_16LE);
+        ChunkedFileProcessor processor = new ChunkedFileProcessor(file, 0, pool);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> processor.collectLines(StandardCharsets.UTF_16LE, CharSequence::toString, Collectors.toList()));
+    }
+
+    @Test
+    public void should_return_identity_for_empty_file() throws IOException {
+        ChunkedFileProcessor processor = new ChunkedFileProcessor(file, 0, pool);
+
+        long size = processor.process(0L, chunk -> (long) chunk.remaining(), Long::sum);
+        assertEquals(0, size);
+        assertEquals(List.of(), processor.collectLines(StandardCharsets.UTF_8, CharSequence::toString, Collectors.toList()));
+    }
+}
@@ -0,0 +1,130 @@
+package io.nio;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LineReaderTest {
+
+    private static List<String> lines(ReadableByteChannel channel, int bufferSize) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (LineReader reader = new LineReader(channel, StandardCharsets.UTF_8, bufferSize)) {
+            reader.forEach(line -> lines.add(line.toString()));
+        }
+        return lines;
+    }
+
+    private static ReadableByteChannel channel(String content) {
+        return Channels.newChannel(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void should_split_lines_on_lf_cr_and_crlf() throws IOException {
+        assertEquals(List.of("a", "b", "c", "d"), lines(channel("a\nb\r\nc\rd"), 64));
+    }
+
+    @Test
+    public void should_keep_empty_lines_without_trailing_empty_line() throws IOException {
+        assertEquals(List.of("a", "", "b"), lines(channel("a\n\nb\n"), 64));
+        assertEquals(List.of("", ""), lines(channel("\r\n\r\n"), 64));
+    }
+
+    @Test
+    public void should_return_null_for_empty_input() throws IOException {
+        try (LineReader reader = new LineReader(channel(""), StandardCharsets.UTF_8, 64)) {
+            assertNull(reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void should_treat_crlf_split_across_reads_as_one_line_break() throws IOException {
+        assertEquals(List.of("a", "b", "", "c"), lines(new TrickleChannel("a\r\nb\r\n\r\nc"), 64));
+    }
+
+    @Test
+    public void should_treat_crlf_split_across_buffers_as_one_line_break() throws IOException {
+        // 缓冲区为 4 时 \r 是第一批的最后一个字符, \n 在第二批
+        assertEquals(List.of("abc", "def"), lines(channel("abc\r\ndef"), 4));
+    }
+
+    @Test
+    public void should_grow_buffer_for_line_longer_than_buffer() throws IOException {
+        String longLine = "x".repeat(10_000);
+
+        assertEquals(List.of("a", longLine, "b"), lines(channel("a\n" + longLine + "\nb"), 4));
+        assertEquals(List.of(longLine), lines(new TrickleChannel(longLine), 4));
+    }
+
+    @Test
+    public void should_decode_multibyte_character_split_across_reads() throws IOException {
+        assertEquals(List.of("中文", "行"), lines(new TrickleChannel("中文\n行"), 4));
+    }
+
+    @Test
+    public void should_copy_line_in_to_string_and_sub_sequence() throws IOException {
+        try (LineReader reader = new LineReader(channel("first\nsecond\n"), StandardCharsets.UTF_8, 64)) {
+            CharSequence line = reader.next();
+            String copy = line.toString();
+            CharSequence sub = line.subSequence(1, 3);
+
+            reader.next();
+
+            assertEquals("first", copy);
+            assertEquals("ir", sub.toString());
+            assertThrows(IndexOutOfBoundsException.class, () -> line.charAt(6));
+        }
+    }
+
+    @Test
+    public void should_close_channel_when_close_stream() throws IOException {
+        ReadableByteChannel channel = channel("a\nb\n");
+        LineReader reader = new LineReader(channel, StandardCharsets.UTF_8, 64);
+
+        try (Stream<CharSequence> lines = reader.lines()) {
+            assertEquals("a,b", lines.map(CharSequence::toString).collect(Collectors.joining(",")));
+        }
+
+        assertFalse(channel.isOpen());
+    }
+
+    /**
+     * 每次只读出一个字节, 模拟读取在任意位置中断
+     */
+    static class TrickleChannel implements ReadableByteChannel {
+        private final ByteBuffer content;
+
+        TrickleChannel(String content) {
+            this.content = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int read(ByteBuffer target) {
+            if (!content.hasRemaining()) {
+                return -1;
+            }
+            target.put(content.get());
+            return 1;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
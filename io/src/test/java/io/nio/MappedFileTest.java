@@ -0,0 +1,129 @@
+package io.nio;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedFileTest {
+
+    static final int SEGMENT_SIZE = 4;
+
+    Path file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        file = Files.createTempFile("mapped", ".txt");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+
+    @Test
+    public void should_split_file_into_segments() throws IOException {
+        Files.writeString(file, "0123456789");
+        try (MappedFile mapped = MappedFile.open(file, SEGMENT_SIZE)) {
+            assertEquals(10, mapped.size());
+            assertEquals(3, mapped.segmentCount());
+            assertEquals("89", string(mapped.segment(2)));
+            assertEquals('4', mapped.get(4));
+        }
+    }
+
+    @Test
+    public void should_slice_within_and_across_segments() throws IOException {
+        Files.writeString(file, "0123456789");
+        try (MappedFile mapped = MappedFile.open(file, SEGMENT_SIZE)) {
+            ByteBuffer within = mapped.slice(4, 4);
+            assertTrue(within.isReadOnly());
+            assertEquals("4567", string(within));
+            assertEquals("23456789", string(mapped.slice(2, 8)));
+            assertEquals("0123456789", string(mapped.slice(0, 10)));
+        }
+    }
+
+    @Test
+    public void should_return_empty_slice_at_end_of_file() throws IOException {
+        Files.writeString(file, "01234567");
+        try (MappedFile mapped = MappedFile.open(file, SEGMENT_SIZE)) {
+            assertEquals(0, mapped.slice(8, 0).remaining());
+            assertEquals("", mapped.decode(8, 0, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void should_access_empty_file() throws IOException {
+        try (MappedFile mapped = MappedFile.open(file)) {
+            assertEquals(0, mapped.segmentCount());
+            assertEquals(0, mapped.slice(0, 0).remaining());
+            assertEquals("", mapped.decode(0, 0, StandardCharsets.UTF_8));
+            assertEquals(-1, mapped.indexOf((byte) '\n', 0));
+            assertThrows(IndexOutOfBoundsException.class, () -> mapped.get(0));
+        }
+    }
+
+    @Test
+    public void should_throw_exception_if_range_out_of_file() throws IOException {
+        Files.writeString(file, "0123456789");
+        try (MappedFile mapped = MappedFile.open(file, SEGMENT_SIZE)) {
+            assertThrows(IndexOutOfBoundsException.class, () -> mapped.get(10));
+            assertThrows(IndexOutOfBoundsException.class, () -> mapped.slice(8, 3));
+            assertThrows(IndexOutOfBoundsException.class, () -> mapped.slice(-1, 1));
+        }
+    }
+
+    @Test
+    public void should_find_byte_across_segments() throws IOException {
+        Files.writeString(file, "abc\nefgh\nj");
+        try (MappedFile mapped = MappedFile.open(file, SEGMENT_SIZE)) {
+            assertEquals(3, mapped.indexOf((byte) '\n', 0));
+            assertEquals(8, mapped.indexOf((byte) '\n', 4));
+            assertEquals(8, mapped.indexOf((byte) '\n', 8));
+            assertEquals(-1, mapped.indexOf((byte) '\n', 9));
+            assertEquals(-1, mapped.indexOf((byte) '\n', 100));
+        }
+    }
+
+    @Test
+    public void should_throw_exception_if_index_of_from_negative_position() throws IOException {
+        Files.writeString(file, "abc");
+        try (MappedFile mapped = MappedFile.open(file, SEGMENT_SIZE)) {
+            assertThrows(IndexOutOfBoundsException.class, () -> mapped.indexOf((byte) 'a', -1));
+        }
+    }
+
+    @Test
+    public void should_decode_multibyte_characters_across_segments() throws IOException {
+        // 每个汉字 3 个字节, 第二个字跨越第一段和第二段
+        Files.writeString(file, "中文字");
+        try (MappedFile mapped = MappedFile.open(file, SEGMENT_SIZE)) {
+            assertEquals("中文字", mapped.decode(0, 9, StandardCharsets.UTF_8));
+            assertEquals("文", mapped.decode(3, 3, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void should_read_mapped_same_as_read() throws IOException {
+        Files.writeString(file, "第一行\r\nsecond line\n\nlast 行\rend");
+
+        assertEquals(NioFileOperator.read(file.toString()), NioFileOperator.readMapped(file.toString()));
+    }
+
+    @Test
+    public void should_read_mapped_empty_file() {
+        assertEquals("", NioFileOperator.readMapped(file.toString()));
+    }
+}
@@ -0,0 +1,154 @@
+package di;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 基准测试使用的组件
+ */
+class Components {
+
+    interface Leaf {
+    }
+
+    static class LeafImpl implements Leaf {
+    }
+
+    static class ConstructorInjected {
+        final Leaf first;
+        final Leaf second;
+        final Leaf third;
+
+        @Inject
+        public ConstructorInjected(Leaf first, Leaf second, Leaf third) {
+            this.first = first;
+            this.second = second;
+            this.third = third;
+        }
+    }
+
+    static class FieldInjected {
+        @Inject
+        Leaf first;
+        @Inject
+        Leaf second;
+        @Inject
+        Leaf third;
+    }
+
+    static class MethodInjected {
+        Leaf first;
+        Leaf second;
+        Leaf third;
+
+        @Inject
+        void inject(Leaf first, Leaf second, Leaf third) {
+            this.first = first;
+            this.second = second;
+            this.third = third;
+        }
+    }
+
+    /**
+     * 深度为 8 的依赖链, Chain8 依赖 Chain7, 依次直到 Leaf
+     */
+    static class Chain1 {
+        @Inject
+        public Chain1(Leaf dependency) {
+        }
+    }
+
+    static class Chain2 {
+        @Inject
+        public Chain2(Chain1 dependency) {
+        }
+    }
+
+    static class Chain3 {
+        @Inject
+        public Chain3(Chain2 dependency) {
+        }
+    }
+
+    static class Chain4 {
+        @Inject
+        public Chain4(Chain3 dependency) {
+        }
+    }
+
+    static class Chain5 {
+        @Inject
+        public Chain5(Chain4 dependency) {
+        }
+    }
+
+    static class Chain6 {
+        @Inject
+        public Chain6(Chain5 dependency) {
+        }
+    }
+
+    static class Chain7 {
+        @Inject
+        public Chain7(Chain6 dependency) {
+        }
+    }
+
+    static class Chain8 {
+        @Inject
+        public Chain8(Chain7 dependency) {
+        }
+    }
+
+    /**
+     * 宽度为 8 的依赖, 与 Chain8 的组件数量相同
+     */
+    static class Wide {
+        @Inject
+        public Wide(Chain1 c1, Leaf l1, Leaf l2, Leaf l3, Leaf l4, Leaf l5, Leaf l6, Leaf l7) {
+        }
+    }
+
+    /**
+     * 创建时消耗一定 CPU 的 Singleton, 用于比较串行创建与并行预热
+     */
+    @Singleton
+    static class SlowSingleton {
+        static final long TOKENS = 100_000;
+
+        public SlowSingleton() {
+            Blackhole.consumeCPU(TOKENS);
+        }
+    }
+
+    @OperationScoped
+    static class OperationLeaf implements Leaf {
+    }
+
+    @OperationScoped
+    static class OperationService {
+        final Leaf leaf;
+
+        @Inject
+        public OperationService(Leaf leaf) {
+            this.leaf = leaf;
+        }
+    }
+
+    static void bindAll(ContextConfig config) {
+        config.bind(Leaf.class, LeafImpl.class);
+        config.bind(ConstructorInjected.class, ConstructorInjected.class);
+        config.bind(FieldInjected.class, FieldInjected.class);
+        config.bind(MethodInjected.class, MethodInjected.class);
+        config.bind(Chain1.class, Chain1.class);
+        config.bind(Chain2.class, Chain2.class);
+        config.bind(Chain3.class, Chain3.class);
+        config.bind(Chain4.class, Chain4.class);
+        config.bind(Chain5.class, Chain5.class);
+        config.bind(Chain6.class, Chain6.class);
+        config.bind(Chain7.class, Chain7.class);
+        config.bind(Chain8.class, Chain8.class);
+        config.bind(Wide.class, Wide.class);
+    }
+}
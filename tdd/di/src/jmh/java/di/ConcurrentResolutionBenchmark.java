@@ -0,0 +1,103 @@
+package di;
+
+import di.Components.*;
+import jakarta.inject.Singleton;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多线程同时从同一个 Context 获取组件的吞吐量, 以及注册组件与生成 Context 并发进行时的吞吐量
+ * <p>
+ * 获取组件的基准测试由 Threads1 到 Threads16 分别以 1, 2, 4, 8, 16 个线程运行, 读取应随线程数线性增长
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(2)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+public class ConcurrentResolutionBenchmark {
+
+    ContextConfig config;
+
+    @Setup
+    public void setUp() {
+        config = new ContextConfig();
+        Components.bindAll(config);
+    }
+
+    @Benchmark
+    @Group("registration")
+    @GroupThreads(2)
+    public void bind() {
+        config.bind(LeafImpl.class, LeafImpl.class);
+    }
+
+    @Benchmark
+    @Group("registration")
+    @GroupThreads(6)
+    public Object getContext() {
+        return config.getContext();
+    }
+
+    /**
+     * JMH 的线程数不能作为参数, 由子类分别指定
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Fork(2)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public abstract static class Resolution {
+
+        Context context;
+
+        @Setup
+        public void setUp() {
+            ContextConfig config = new ContextConfig();
+            config.bind(Leaf.class, LeafImpl.class, Singleton.class);
+            config.bind(ConstructorInjected.class, ConstructorInjected.class, Singleton.class);
+            config.bind(Chain1.class, Chain1.class);
+            context = config.getContext();
+        }
+
+        /**
+         * 已创建的 Singleton, 只有一次 volatile 读
+         */
+        @Benchmark
+        public Object singleton() {
+            return context.get(ConstructorInjected.class).get();
+        }
+
+        /**
+         * 每次创建新实例, 依赖是 Singleton
+         */
+        @Benchmark
+        public Object prototype() {
+            return context.get(Chain1.class).get();
+        }
+    }
+
+    @Threads(1)
+    public static class Threads1 extends Resolution {
+    }
+
+    @Threads(2)
+    public static class Threads2 extends Resolution {
+    }
+
+    @Threads(4)
+    public static class Threads4 extends Resolution {
+    }
+
+    @Threads(8)
+    public static class Threads8 extends Resolution {
+    }
+
+    @Threads(16)
+    public static class Threads16 extends Resolution {
+    }
+}
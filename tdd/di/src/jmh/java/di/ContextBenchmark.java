@@ -0,0 +1,70 @@
+package di;
+
+import di.Components.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 生成 Context 的开销, 包括依赖检查和编译解析计划
+ * <p>
+ * 宽图由 size 个多重绑定的元素组成, 集合依赖全部元素; 子容器在同样大小的父 Context 上只覆盖一个组件;
+ * 菱形依赖密集的图见 {@link DiamondGraphBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(2)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ContextBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int size;
+
+    ContextConfig wide;
+
+    ContextConfig child;
+
+    ContextConfig components;
+
+    @Setup
+    public void setUp() {
+        wide = new ContextConfig();
+        for (int i = 0; i < size; i++) {
+            wide.contribute(Leaf.class, new LeafImpl());
+        }
+
+        ContextConfig parent = new ContextConfig();
+        for (int i = 0; i < size; i++) {
+            parent.contribute(Leaf.class, new LeafImpl());
+        }
+        Components.bindAll(parent);
+        child = new ContextConfig(parent.getContext());
+        child.bind(Leaf.class, new LeafImpl());
+
+        components = new ContextConfig();
+        Components.bindAll(components);
+    }
+
+    @Benchmark
+    public Context wideGraph() {
+        return wide.getContext();
+    }
+
+    /**
+     * 耗时应与父 Context 的大小无关
+     */
+    @Benchmark
+    public Context childContext() {
+        return child.getContext();
+    }
+
+    /**
+     * 包含深度为 8 的依赖链, 与 size 无关, 作为对照
+     */
+    @Benchmark
+    public Context deepGraph() {
+        return components.getContext();
+    }
+}
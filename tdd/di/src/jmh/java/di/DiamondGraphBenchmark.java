@@ -0,0 +1,103 @@
+package di;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 生成 Context 时校验由菱形依赖组成的分层图, 逐条路径遍历时耗时随层数指数增长, 逐个组件遍历时与绑定数成正比
+ * <p>
+ * 共 layers * width 个组件, 每层的第 i 个组件依赖上一层的第 i 个和第 i + 1 个组件, 相邻的组件两两构成菱形;
+ * 组件在 setUp 中编译, 默认约 3000 个绑定
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(2)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DiamondGraphBenchmark {
+
+    static final String PACKAGE = "bench.diamond";
+
+    @Param({"30"})
+    int layers;
+
+    @Param({"100"})
+    int width;
+
+    Path directory;
+
+    URLClassLoader loader;
+
+    ContextConfig config;
+
+    @Setup
+    public void setUp() throws IOException, ClassNotFoundException {
+        directory = Files.createTempDirectory("diamond");
+        Path sources = Files.createDirectories(directory.resolve("src/" + PACKAGE.replace('.', '/')));
+        Path classes = Files.createDirectories(directory.resolve("classes"));
+        List<String> files = new ArrayList<>();
+        for (int layer = 0; layer < layers; layer++) {
+            for (int i = 0; i < width; i++) {
+                String name = name(layer, i);
+                String dependencies = layer == 0 ? ""
+                    : name(layer - 1, i) + " left, " + name(layer - 1, (i + 1) % width) + " right";
+                Path source = sources.resolve(name + ".java");
+                Files.writeString(source, "package " + PACKAGE + ";\n"
+                    + "public class " + name + " {\n"
+                    + "    @jakarta.inject.Inject\n"
+                    + "    public " + name + "(" + dependencies + ") {\n"
+                    + "    }\n"
+                    + "}\n");
+                files.add(source.toString());
+            }
+        }
+        List<String> arguments = new ArrayList<>(List.of("-proc:none", "-classpath", System.getProperty("java.class.path"),
+            "-d", classes.toString()));
+        arguments.addAll(files);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler.run(null, null, null, arguments.toArray(String[]::new)) != 0) {
+            throw new IllegalStateException("failed to compile components");
+        }
+
+        loader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, DiamondGraphBenchmark.class.getClassLoader());
+        config = new ContextConfig();
+        for (int layer = 0; layer < layers; layer++) {
+            for (int i = 0; i < width; i++) {
+                Class<?> component = loader.loadClass(PACKAGE + "." + name(layer, i));
+                config.bind(component, component);
+            }
+        }
+    }
+
+    private static String name(int layer, int index) {
+        return "Diamond" + layer + "_" + index;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        loader.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Context diamondGraph() {
+        return config.getContext();
+    }
+}
@@ -0,0 +1,110 @@
+package di;
+
+import di.Components.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Constructor;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单线程获取组件的开销: 实例绑定, 三种注入方式, 依赖链深度与宽度, 不分配 Optional 的获取方式, 以及与直接反射调用的对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class InjectionBenchmark {
+
+    /**
+     * 开启统计时每次解析额外记录次数和耗时
+     */
+    @Param({"false", "true"})
+    boolean instrumented;
+
+    Context context;
+
+    ConstructorInjectProvider<ConstructorInjected> provider;
+
+    Constructor<ConstructorInjected> constructor;
+
+    Object[] dependencies;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        ContextConfig config = new ContextConfig();
+        if (instrumented) {
+            config.instrument(new ResolutionMetrics(Duration.ofDays(1)));
+        }
+        config.bind(LeafImpl.class, new LeafImpl());
+        Components.bindAll(config);
+        context = config.getContext();
+
+        provider = new ConstructorInjectProvider<>(ConstructorInjected.class);
+        constructor = ConstructorInjected.class.getConstructor(Leaf.class, Leaf.class, Leaf.class);
+        dependencies = new Object[]{new LeafImpl(), new LeafImpl(), new LeafImpl()};
+    }
+
+    @Benchmark
+    public Object instance() {
+        return context.get(LeafImpl.class).get();
+    }
+
+    @Benchmark
+    public Object constructorInjection() {
+        return context.get(ConstructorInjected.class).get();
+    }
+
+    @Benchmark
+    public Object fieldInjection() {
+        return context.get(FieldInjected.class).get();
+    }
+
+    @Benchmark
+    public Object methodInjection() {
+        return context.get(MethodInjected.class).get();
+    }
+
+    @Benchmark
+    public Object deepChain() {
+        return context.get(Chain8.class).get();
+    }
+
+    @Benchmark
+    public Object wideDependencies() {
+        return context.get(Wide.class).get();
+    }
+
+    /**
+     * 不经过 Optional, 获取已有 Singleton 时不分配对象, 配合 -prof gc 查看每次调用的分配量
+     */
+    @Benchmark
+    public Object instanceWithoutOptional() {
+        return context.getInstance(LeafImpl.class);
+    }
+
+    @Benchmark
+    public Object constructorInjectionWithoutOptional() {
+        return context.getInstance(ConstructorInjected.class);
+    }
+
+    @Benchmark
+    public Object wideDependenciesWithoutOptional() {
+        return context.getInstance(Wide.class);
+    }
+
+    /**
+     * 只包含创建实例, 不包含解析依赖, 与下面的反射调用对比
+     */
+    @Benchmark
+    public Object methodHandleInstantiation() {
+        return provider.get(dependencies);
+    }
+
+    @Benchmark
+    public Object reflectiveInstantiation() throws ReflectiveOperationException {
+        return constructor.newInstance(dependencies);
+    }
+}
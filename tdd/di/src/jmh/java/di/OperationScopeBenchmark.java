@@ -0,0 +1,79 @@
+package di;
+
+import di.Components.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 提交 100k 个任务, 每个任务打开一个操作并获取操作范围内的组件
+ * <p>
+ * threads 为数字时任务在固定大小的线程池中执行; 为 virtual 时每个任务一个虚拟线程, 共 100k 个,
+ * 项目以 Java 17 编译, 通过反射创建虚拟线程的 Executor, 需要在 Java 21 及以上运行, 否则 setUp 失败。
+ * 操作结束后线程上不保留实例
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class OperationScopeBenchmark {
+
+    static final int OPERATIONS = 100_000;
+
+    @Param({"8", "64", "virtual"})
+    String threads;
+
+    ExecutorService executor;
+
+    OperationScope operations;
+
+    Context context;
+
+    @Setup
+    public void setUp() {
+        executor = threads.equals("virtual") ? virtualThreadPerTask() : Executors.newFixedThreadPool(Integer.parseInt(threads));
+        operations = new OperationScope();
+        ContextConfig config = new ContextConfig();
+        config.scope(OperationScoped.class, operations);
+        config.bind(Leaf.class, OperationLeaf.class);
+        config.bind(OperationService.class, OperationService.class);
+        context = config.getContext();
+    }
+
+    private static ExecutorService virtualThreadPerTask() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("virtual threads require Java 21 or later", e);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public void operations(Blackhole blackhole) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(OPERATIONS);
+        for (int i = 0; i < OPERATIONS; i++) {
+            executor.execute(() -> {
+                try (OperationScope.Operation operation = operations.open()) {
+                    operation.run(() -> {
+                        blackhole.consume(context.get(OperationService.class).get());
+                        blackhole.consume(context.get(Leaf.class).get());
+                    });
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+}
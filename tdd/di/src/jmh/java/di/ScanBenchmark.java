@@ -0,0 +1,121 @@
+package di;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * 通过组件扫描启动的开销: 扫描, 加载组件类, 注册并生成 Context
+ * <p>
+ * 组件在 setUp 中编译并打包为 jar, 每次调用使用新的 ClassLoader, 包含类加载的开销;
+ * indexed 为 false 时 jar 中没有索引, 需要读取每个 class 文件
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ScanBenchmark {
+
+    static final String PACKAGE = "bench.scan";
+
+    @Param({"1000", "10000"})
+    int size;
+
+    @Param({"true", "false"})
+    boolean indexed;
+
+    Path directory;
+
+    Path jar;
+
+    URLClassLoader loader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("scan");
+        Path sources = Files.createDirectories(directory.resolve("src/" + PACKAGE.replace('.', '/')));
+        Path classes = Files.createDirectories(directory.resolve("classes"));
+        List<String> files = new ArrayList<>();
+        List<String> components = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String name = "Component" + i;
+            // 每个组件依赖编号为一半的组件, 构成深度为 log(size) 的树
+            String dependency = i == 0 ? "" : "Component" + (i / 2) + " dependency";
+            Path source = sources.resolve(name + ".java");
+            Files.writeString(source, "package " + PACKAGE + ";\n"
+                + "public class " + name + " {\n"
+                + "    @jakarta.inject.Inject\n"
+                + "    public " + name + "(" + dependency + ") {\n"
+                + "    }\n"
+                + "}\n");
+            files.add(source.toString());
+            components.add(PACKAGE + "." + name);
+        }
+        List<String> arguments = new ArrayList<>(List.of("-proc:none", "-classpath", System.getProperty("java.class.path"),
+            "-d", classes.toString()));
+        arguments.addAll(files);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler.run(null, null, null, arguments.toArray(String[]::new)) != 0) {
+            throw new IllegalStateException("failed to compile components");
+        }
+
+        jar = directory.resolve("components.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (String entry : List.of("bench/", "bench/scan/")) {
+                out.putNextEntry(new JarEntry(entry));
+            }
+            try (Stream<Path> compiled = Files.list(classes.resolve(PACKAGE.replace('.', '/')))) {
+                for (Path file : compiled.sorted().toList()) {
+                    out.putNextEntry(new JarEntry(classes.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/")));
+                    Files.copy(file, out);
+                }
+            }
+            if (indexed) {
+                out.putNextEntry(new JarEntry(ComponentScanner.INDEX));
+                out.write(String.join("\n", components).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void newLoader() throws IOException {
+        loader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, ScanBenchmark.class.getClassLoader());
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeLoader() throws IOException {
+        loader.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Context scan() {
+        ContextConfig config = new ContextConfig();
+        config.scan(loader, PACKAGE);
+        return config.getContext();
+    }
+}
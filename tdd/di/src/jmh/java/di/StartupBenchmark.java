@@ -0,0 +1,31 @@
+package di;
+
+import di.Components.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 冷启动开销, 每个 fork 只测一次, 包括首次读取注入信息
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(20)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class StartupBenchmark {
+
+    /**
+     * 为 true 时使用编译期生成的组件工厂, 否则通过反射读取注入信息
+     */
+    @Param({"false", "true"})
+    boolean generated;
+
+    @Benchmark
+    public Object firstResolution() {
+        ContextConfig config = new ContextConfig(generated);
+        Components.bindAll(config);
+        return config.getContext().get(Wide.class).get();
+    }
+}
@@ -0,0 +1,54 @@
+package di;
+
+import di.Components.SlowSingleton;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 16 个创建较慢的 Singleton, 比较获取时按需串行创建与生成 Context 时并行预热
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(2)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WarmUpBenchmark {
+
+    static final int SINGLETONS = 16;
+
+    static final ComponentRef<List<SlowSingleton>> SINGLETON_LIST = new ComponentRef<>() {
+    };
+
+    ExecutorService executor;
+
+    ContextConfig config;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        config = new ContextConfig();
+        for (int i = 0; i < SINGLETONS; i++) {
+            config.contribute(SlowSingleton.class, SlowSingleton.class);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public Object sequential() {
+        return config.getContext().get(SINGLETON_LIST).get();
+    }
+
+    @Benchmark
+    public Object parallelWarmUp() {
+        return config.getContext(executor).get(SINGLETON_LIST).get();
+    }
+}
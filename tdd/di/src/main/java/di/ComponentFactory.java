@@ -0,0 +1,19 @@
+package di;
+
+import java.util.List;
+
+/**
+ * 编译期由 {@link di.processor.InjectFactoryProcessor} 为组件生成的工厂, 创建组件时不需要反射
+ * <p>
+ * 工厂中的依赖都是直接注入的组件实例
+ *
+ * @param <T> 组件类型
+ */
+public interface ComponentFactory<T> {
+    /**
+     * @param dependencies 依赖实例, 按 getDependencies() 的顺序排列
+     */
+    T create(Object[] dependencies);
+
+    List<Class<?>> getDependencies();
+}
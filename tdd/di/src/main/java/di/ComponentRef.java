@@ -0,0 +1,195 @@
+package di;
+
+import jakarta.inject.Provider;
+import jakarta.inject.Qualifier;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Objects;
+
+import static java.util.Arrays.stream;
+
+/**
+ * 对组件的引用, 由组件类型和 Qualifier 确定一个组件
+ * <p>
+ * 组件类型可以是带泛型参数的类型, 例如 {@code new ComponentRef<Repository<User>>() {}};
+ * 作为依赖时还记录注入方式: 直接注入实例, 注入 {@link Provider}, 或注入延迟创建的代理({@link Lazy})
+ */
+public class ComponentRef<ComponentType> {
+
+    private Type type;
+
+    private Class<ComponentType> component;
+
+    private Annotation qualifier;
+
+    private boolean provider;
+
+    private boolean lazy;
+
+    /**
+     * 只由类型和 Qualifier 计算, 与注入方式无关, 在构造时算好, 查找时不再计算
+     */
+    private int hash;
+
+    /**
+     * 去掉注入方式后的引用, 作为绑定的 key
+     */
+    private ComponentRef<ComponentType> key;
+
+    /**
+     * 通过子类的泛型参数获取组件类型, 用于带泛型参数的组件
+     */
+    protected ComponentRef() {
+        this((Annotation) null);
+    }
+
+    protected ComponentRef(Annotation qualifier) {
+        init(((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[0], qualifier, false, false);
+    }
+
+    private ComponentRef(Type type, Annotation qualifier, boolean provider, boolean lazy) {
+        init(type, qualifier, provider, lazy);
+    }
+
+    private void init(Type type, Annotation qualifier, boolean provider, boolean lazy) {
+        if (qualifier != null && !qualifier.annotationType().isAnnotationPresent(Qualifier.class)) {
+            throw new IllegalComponentException();
+        }
+        this.type = type;
+        this.component = (Class<ComponentType>) rawType(type);
+        this.qualifier = qualifier;
+        this.provider = provider;
+        this.lazy = lazy;
+        this.hash = Objects.hash(type, qualifier);
+        this.key = provider || lazy ? new ComponentRef<>(type, qualifier, false, false) : this;
+    }
+
+    public static <ComponentType> ComponentRef<ComponentType> of(Class<ComponentType> component) {
+        return new ComponentRef<>(component, null, false, false);
+    }
+
+    public static <ComponentType> ComponentRef<ComponentType> of(Class<ComponentType> component, Annotation qualifier) {
+        return new ComponentRef<>(component, qualifier, false, false);
+    }
+
+    public static ComponentRef<?> of(Type type, Annotation qualifier) {
+        return new ComponentRef<>(type, qualifier, false, false);
+    }
+
+    public static <ComponentType> ComponentRef<ComponentType> providerOf(Class<ComponentType> component) {
+        return new ComponentRef<>(component, null, true, false);
+    }
+
+    public static <ComponentType> ComponentRef<ComponentType> lazyOf(Class<ComponentType> component) {
+        if (!component.isInterface()) {
+            throw new IllegalComponentException();
+        }
+        return new ComponentRef<>(component, null, false, true);
+    }
+
+    static ComponentRef<?> of(Type type, Annotation qualifier, boolean provider, boolean lazy) {
+        return new ComponentRef<>(type, qualifier, provider, lazy);
+    }
+
+    /**
+     * 根据注入点(构造函数参数, 字段, 方法参数)的类型和标注创建
+     */
+    static ComponentRef<?> of(Type type, Annotation[] annotations) {
+        List<Annotation> qualifiers = stream(annotations)
+            .filter(a -> a.annotationType().isAnnotationPresent(Qualifier.class))
+            .toList();
+        if (qualifiers.size() > 1) {
+            throw new IllegalComponentException();
+        }
+        Annotation qualifier = qualifiers.stream().findFirst().orElse(null);
+        boolean lazy = stream(annotations).anyMatch(a -> a.annotationType() == Lazy.class);
+        if (type instanceof ParameterizedType parameterized && parameterized.getRawType() == Provider.class) {
+            if (lazy) {
+                throw new IllegalComponentException();
+            }
+            return new ComponentRef<>(parameterized.getActualTypeArguments()[0], qualifier, true, false);
+        }
+        if (lazy && !rawType(type).isInterface()) {
+            throw new IllegalComponentException();
+        }
+        return new ComponentRef<>(type, qualifier, false, lazy);
+    }
+
+    private static Class<?> rawType(Type type) {
+        if (type instanceof Class<?> component) {
+            return component;
+        }
+        if (type instanceof ParameterizedType parameterized) {
+            return (Class<?>) parameterized.getRawType();
+        }
+        throw new IllegalComponentException();
+    }
+
+    /**
+     * @return 组件类型, 带泛型参数时为 ParameterizedType
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return 组件类型去掉泛型参数后的类
+     */
+    public Class<ComponentType> getComponent() {
+        return component;
+    }
+
+    public Annotation getQualifier() {
+        return qualifier;
+    }
+
+    /**
+     * 以 Provider 注入
+     */
+    public boolean isProvider() {
+        return provider;
+    }
+
+    /**
+     * 以延迟创建的代理注入
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * 注入时需要立即创建依赖的实例, 只有这种依赖会构成循环依赖
+     */
+    public boolean isDirect() {
+        return !provider && !lazy;
+    }
+
+    /**
+     * @return 只包含类型和 Qualifier 的引用, 用于查找绑定
+     */
+    public ComponentRef<ComponentType> key() {
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ComponentRef<?> that)) return false;
+        return hash == that.hash && provider == that.provider && lazy == that.lazy
+            && type.equals(that.type) && Objects.equals(qualifier, that.qualifier);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        String name = (qualifier == null ? "" : qualifier + " ") + type.getTypeName();
+        return provider ? "Provider<" + name + ">" : lazy ? "@Lazy " + name : name;
+    }
+}
@@ -0,0 +1,302 @@
+package di;
+
+import jakarta.inject.Inject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static java.util.Arrays.stream;
+
+/**
+ * 查找包及其子包中声明了 Inject 成员的组件类
+ * <p>
+ * 优先读取 processor 在编译期生成的索引 {@value #INDEX}; 没有索引的目录或 jar 在扫描时并行读取 class 文件,
+ * jar 通过内存映射直接读取中央目录和条目, 只有常量池中出现 Inject 标注的类才会被加载
+ * <p>
+ * 通过 ClassLoader 查找包所在的目录或 jar, 不包含目录条目的 jar 无法找到
+ */
+final class ComponentScanner {
+
+    static final String INDEX = "META-INF/di/components";
+
+    private static final byte[] INJECT = "Ljakarta/inject/Inject;".getBytes(StandardCharsets.ISO_8859_1);
+
+    private static final String CLASS = ".class";
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_ENTRY = 0x02014b50;
+    private static final int LOCAL_FILE_HEADER = 0x04034b50;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private ComponentScanner() {
+    }
+
+    /**
+     * @return 按类名排序的组件类, 抽象类, 接口, 非静态内部类以及无法加载的类不包括在内
+     */
+    static List<Class<?>> scan(ClassLoader loader, String packageName) {
+        if (packageName.isEmpty()) {
+            throw new IllegalArgumentException("package name required");
+        }
+        String path = packageName.replace('.', '/');
+        try {
+            Map<String, URL> indexes = new HashMap<>();
+            for (URL index : Collections.list(loader.getResources(INDEX))) {
+                indexes.put(root(index, INDEX), index);
+            }
+            List<String> roots = Collections.list(loader.getResources(path)).stream()
+                .map(url -> root(url, path))
+                .distinct()
+                .toList();
+            return roots.parallelStream()
+                .flatMap(root -> indexes.containsKey(root)
+                    ? readIndex(indexes.get(root), packageName).stream()
+                    : scanRoot(root, path).stream())
+                .distinct()
+                .sorted()
+                .<Class<?>>map(name -> load(loader, name))
+                .filter(Objects::nonNull)
+                .filter(ComponentScanner::isComponent)
+                .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 去掉资源路径, 得到 classpath 中的目录或 jar, 例如 jar:file:/a.jar!/
+     */
+    private static String root(URL url, String resource) {
+        String location = url.toString();
+        if (location.endsWith("/")) {
+            location = location.substring(0, location.length() - 1);
+        }
+        return location.substring(0, location.length() - resource.length());
+    }
+
+    private static List<String> readIndex(URL index, String packageName) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+            return reader.lines()
+                .map(String::strip)
+                .filter(name -> name.startsWith(packageName + "."))
+                .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> scanRoot(String root, String path) {
+        try {
+            if (root.startsWith("file:")) {
+                return scanDirectory(Paths.get(new URI(root)), path);
+            }
+            if (root.startsWith("jar:file:") && root.endsWith("!/")) {
+                return scanJar(Paths.get(new URI(root.substring("jar:".length(), root.length() - "!/".length()))), path);
+            }
+            return List.of();
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException(root, e);
+        }
+    }
+
+    static List<String> scanDirectory(Path root, String path) {
+        Path directory = root.resolve(path);
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(file -> file.toString().endsWith(CLASS))
+                .toList()
+                .parallelStream()
+                .filter(file -> {
+                    try {
+                        return containsInject(ByteBuffer.wrap(Files.readAllBytes(file)));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .map(file -> className(root.relativize(file).toString().replace(root.getFileSystem().getSeparator(), "/")))
+                .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 映射整个 jar, 从文件末尾的中央目录读取条目, 再并行解压和检查 path 下的 class 文件;
+     * 超过 2GB 或使用 ZIP64 格式的 jar 通过 ZipFile 读取
+     */
+    static List<String> scanJar(Path jar, String path) {
+        try (FileChannel channel = FileChannel.open(jar, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return scanZipFile(jar, path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int end = endOfCentralDirectory(buffer);
+            if (end < 0) {
+                throw new IOException("not a jar: " + jar);
+            }
+            int count = buffer.getShort(end + 10) & 0xFFFF;
+            long offset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+            if (count == 0xFFFF || offset == 0xFFFFFFFFL) {
+                return scanZipFile(jar, path);
+            }
+            List<Entry> entries = new ArrayList<>();
+            int position = (int) offset;
+            for (int i = 0; i < count; i++) {
+                if (buffer.getInt(position) != CENTRAL_DIRECTORY_ENTRY) {
+                    throw new IOException("corrupted central directory: " + jar);
+                }
+                int nameLength = buffer.getShort(position + 28) & 0xFFFF;
+                String name = StandardCharsets.UTF_8.decode(buffer.slice(position + 46, nameLength)).toString();
+                if (name.startsWith(path + "/") && name.endsWith(CLASS)) {
+                    entries.add(new Entry(name, buffer.getShort(position + 10) & 0xFFFF, buffer.getInt(position + 20),
+                        buffer.getInt(position + 24), buffer.getInt(position + 42)));
+                }
+                position += 46 + nameLength + (buffer.getShort(position + 30) & 0xFFFF) + (buffer.getShort(position + 32) & 0xFFFF);
+            }
+            return entries.parallelStream()
+                .filter(entry -> containsInject(entry.read(buffer)))
+                .map(entry -> className(entry.name))
+                .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> scanZipFile(Path jar, String path) throws IOException {
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            List<String> result = new ArrayList<>();
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                if (entry.getName().startsWith(path + "/") && entry.getName().endsWith(CLASS)
+                    && containsInject(ByteBuffer.wrap(zip.getInputStream(entry).readAllBytes()))) {
+                    result.add(className(entry.getName()));
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 中央目录结束记录在文件末尾, 之后最多还有 65535 字节的注释
+     */
+    private static int endOfCentralDirectory(ByteBuffer buffer) {
+        int last = buffer.limit() - 22;
+        for (int position = last; position >= 0 && position >= last - 0xFFFF; position--) {
+            if (buffer.getInt(position) == END_OF_CENTRAL_DIRECTORY) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * jar 中的一个 class 文件
+     *
+     * @param offset 本地文件头的位置, 压缩数据紧跟在本地文件头之后
+     */
+    private record Entry(String name, int method, int compressedSize, int size, int offset) {
+        ByteBuffer read(ByteBuffer jar) {
+            if (jar.getInt(offset) != LOCAL_FILE_HEADER) {
+                throw new UncheckedIOException(new IOException("corrupted entry: " + name));
+            }
+            int start = offset + 30 + (jar.getShort(offset + 26) & 0xFFFF) + (jar.getShort(offset + 28) & 0xFFFF);
+            ByteBuffer data = jar.slice(start, compressedSize);
+            if (method == STORED) {
+                return data;
+            }
+            if (method != DEFLATED) {
+                throw new UncheckedIOException(new IOException("unsupported compression method " + method + ": " + name));
+            }
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(data);
+                byte[] bytes = new byte[size];
+                int length = 0;
+                while (length < size && !inflater.finished()) {
+                    int inflated = inflater.inflate(bytes, length, size - length);
+                    if (inflated == 0 && inflater.needsInput()) {
+                        break;
+                    }
+                    length += inflated;
+                }
+                return ByteBuffer.wrap(bytes, 0, length);
+            } catch (DataFormatException e) {
+                throw new UncheckedIOException(new IOException("corrupted entry: " + name, e));
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    /**
+     * 使用 Inject 标注的类的常量池中一定有它的描述符
+     */
+    static boolean containsInject(ByteBuffer bytes) {
+        int last = bytes.limit() - INJECT.length;
+        search:
+        for (int i = bytes.position(); i <= last; i++) {
+            for (int j = 0; j < INJECT.length; j++) {
+                if (bytes.get(i + j) != INJECT[j]) {
+                    continue search;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static String className(String file) {
+        return file.substring(0, file.length() - CLASS.length()).replace('/', '.');
+    }
+
+    private static Class<?> load(ClassLoader loader, String name) {
+        try {
+            return Class.forName(name, false, loader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * 与 processor 的索引规则一致: 类自身声明了 Inject 成员, 并且可以由容器实例化
+     */
+    private static boolean isComponent(Class<?> component) {
+        int modifiers = component.getModifiers();
+        if (component.isInterface() || Modifier.isAbstract(modifiers) || component.isAnonymousClass() || component.isLocalClass()
+            || (component.isMemberClass() && !Modifier.isStatic(modifiers))) {
+            return false;
+        }
+        try {
+            return Stream.of(component.getDeclaredConstructors(), component.getDeclaredFields(), component.getDeclaredMethods())
+                .flatMap(members -> stream((AnnotatedElement[]) members))
+                .anyMatch(member -> member.isAnnotationPresent(Inject.class));
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -1,98 +1,55 @@
 package di;
 
-import jakarta.inject.Inject;
-
-import java.lang.reflect.*;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
 import java.util.List;
-import java.util.stream.Stream;
-
-import static java.util.Arrays.stream;
 
 public class ConstructorInjectProvider<T> implements ContextConfig.ComponentProvider<T> {
 
-    private final Constructor<T> injectConstructor;
-
-    private List<Field> injectFields;
+    private final InjectionMetadata metadata;
 
-    private final List<Method> injectMethods;
+    private final Class<? extends Annotation> scope;
 
     public ConstructorInjectProvider(Class<T> component) {
-        this.injectConstructor = getInjectConstructor(component);
-        this.injectFields = getInjectFields(component);
-        this.injectMethods = getInjectMethods(component);
+        this(component, ContextConfig.scopeOf(component));
     }
 
-    @Override
-    public T get(Context context) {
-        try {
-            // get dependency instance
-            Object[] dependencies = stream(injectConstructor.getParameters())
-                .map(p -> context.get(p.getType()).get())
-                .toArray();
-            T instance = injectConstructor.newInstance(dependencies);
-            for (Field field : injectFields) {
-                field.set(instance, context.get(field.getType()).get());
-            }
-            for (Method method : injectMethods) {
-                method.invoke(instance, stream(method.getParameterTypes()).map(t -> context.get(t).get()).toArray(Object[]::new));
-            }
-            return instance;
-        } catch (InvocationTargetException | InstantiationException | IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
+    public ConstructorInjectProvider(Class<T> component, Class<? extends Annotation> scope) {
+        this(InjectionMetadata.of(component), scope);
     }
 
-    @Override
-    public List<Class<?>> getDependencies() {
-        return Stream.concat(Stream.concat(stream(injectConstructor.getParameters()).map(Parameter::getType), injectFields.stream().map(Field::getType)),
-                injectMethods.stream().flatMap(m -> stream(m.getParameterTypes())))
-            .toList();
+    ConstructorInjectProvider(InjectionMetadata metadata, Class<? extends Annotation> scope) {
+        this.metadata = metadata;
+        this.scope = scope;
     }
 
+    InjectionMetadata getMetadata() {
+        return metadata;
+    }
 
-    private static <T> List<Field> getInjectFields(Class<T> component) {
-        List<Field> injectFields = new ArrayList<>();
-        Class<?> current = component;
-        while (current != Object.class) {
-            injectFields.addAll(stream(current.getDeclaredFields())
-                .filter(f -> f.isAnnotationPresent(Inject.class))
-                .toList());
-            current = current.getSuperclass();
+    @Override
+    public T get(Object[] dependencies) {
+        try {
+            return (T) (Object) metadata.instantiator.invokeExact(dependencies);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
         }
-        return injectFields;
     }
 
-    private static <T> Constructor<T> getInjectConstructor(Class<T> implementation) {
-        List<Constructor<?>> injectConstructors = stream(implementation.getConstructors())
-            .filter(c -> c.isAnnotationPresent(Inject.class)).toList();
-        if (injectConstructors.size() > 1) {
-            throw new IllegalComponentException();
-        }
-        return (Constructor<T>) injectConstructors.stream().findFirst().orElseGet(() -> {
-            try {
-                return implementation.getDeclaredConstructor();
-            } catch (NoSuchMethodException e) {
-                throw new IllegalComponentException();
-            }
-        });
+    @Override
+    public List<ComponentRef<?>> getDependencies() {
+        return metadata.dependencies;
     }
 
-    private static <T> List<Method> getInjectMethods(Class<T> component) {
-        List<Method> result = new ArrayList<>();
-        Class<?> current = component;
-        while (current != Object.class) {
-            result.addAll(stream(current.getDeclaredMethods()).filter(m -> m.isAnnotationPresent(Inject.class))
-                .filter(m -> result.stream().noneMatch(o -> (o.getName().equals(m.getName())) && Arrays.equals(m.getParameterTypes(), o.getParameterTypes())))
-                // 排除没有在子类中用Injected, 方法签名一致
-                .filter(m -> stream(component.getDeclaredMethods()).filter(m1 -> !m1.isAnnotationPresent(Inject.class)).noneMatch(o -> o.getName().equals(m.getName()) && Arrays.equals(m.getParameterTypes(), o.getParameterTypes())))
-                .toList());
-            current = current.getSuperclass();
-        }
+    @Override
+    public MethodHandle getInstantiator() {
+        return metadata.spreadInstantiator;
+    }
 
-        Collections.reverse(result);
-        return result;
+    @Override
+    public Class<? extends Annotation> getScope() {
+        return scope;
     }
 }
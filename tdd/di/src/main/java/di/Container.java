@@ -1,4 +1,126 @@
 package di;
 
-public class Container {
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 持有 Context 的运行时, 负责销毁 Context 创建的组件
+ * <p>
+ * 关闭时按依赖的逆序销毁已创建的 Singleton(调用 PreDestroy 方法, 没有时调用 AutoCloseable.close), 互不依赖的组件并行销毁;
+ * 超过关闭期限后不再销毁尚未开始的组件, 并中断正在销毁的组件。绑定的实例由调用方创建, 不会被销毁
+ * <p>
+ * 子容器只销毁自己创建的组件, 父容器中的组件在父容器关闭时销毁
+ */
+public class Container implements Context, AutoCloseable {
+
+    private static final Duration DEFAULT_SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ResolutionPlan context;
+
+    private final Duration shutdownTimeout;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public Container(Context context) {
+        this(context, DEFAULT_SHUTDOWN_TIMEOUT);
+    }
+
+    /**
+     * @param context         由 {@link ContextConfig} 生成的 Context
+     * @param shutdownTimeout 关闭时等待所有组件销毁的期限
+     */
+    public Container(Context context, Duration shutdownTimeout) {
+        if (!(context instanceof ResolutionPlan plan)) {
+            throw new IllegalArgumentException("context must be created by ContextConfig");
+        }
+        if (shutdownTimeout.isNegative()) {
+            throw new IllegalArgumentException("negative shutdown timeout: " + shutdownTimeout);
+        }
+        this.context = plan;
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    @Override
+    public <T> Optional<T> get(Class<T> componentClass) {
+        return open().get(componentClass);
+    }
+
+    @Override
+    public <T> Optional<T> get(ComponentRef<T> ref) {
+        return open().get(ref);
+    }
+
+    @Override
+    public <T> T getInstance(Class<T> componentClass) {
+        return open().getInstance(componentClass);
+    }
+
+    @Override
+    public <T> T getInstance(ComponentRef<T> ref) {
+        return open().getInstance(ref);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getAsync(Class<T> componentClass, Executor executor) {
+        return open().getAsync(componentClass, executor);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getAsync(ComponentRef<T> ref, Executor executor) {
+        return open().getAsync(ref, executor);
+    }
+
+    private ResolutionPlan open() {
+        if (closed.get()) {
+            throw new IllegalStateException("container is closed");
+        }
+        return context;
+    }
+
+    /**
+     * 销毁已创建的组件, 只执行一次, 之后获取组件抛出 IllegalStateException
+     * <p>
+     * 销毁失败时抛出第一个失败组件的异常, 其余异常作为 suppressed; 超过期限时抛出 IllegalStateException, 列出未销毁的组件
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        Map<ComponentRef<?>, Throwable> failures = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "di-shutdown");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<ComponentRef<?>, CompletableFuture<Void>> destroyed = Map.of();
+        try {
+            destroyed = context.destroy(executor, failures);
+            CompletableFuture.allOf(destroyed.values().toArray(CompletableFuture<?>[]::new))
+                .get(shutdownTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            List<ComponentRef<?>> pending = destroyed.entrySet().stream()
+                .filter(entry -> !entry.getValue().isDone())
+                .map(Map.Entry::getKey)
+                .toList();
+            // 已完成的 future 不受取消影响
+            destroyed.values().forEach(future -> future.cancel(false));
+            IllegalStateException timeout = new IllegalStateException("shutdown deadline exceeded, not destroyed: " + pending, e);
+            failures.values().forEach(timeout::addSuppressed);
+            throw timeout;
+        } catch (ExecutionException e) {
+            // 销毁失败记录在 failures 中, future 只会因取消或线程池拒绝而失败
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        ResolutionPlan.rethrow(failures);
+    }
 }
@@ -1,7 +1,39 @@
 package di;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+/**
+ * 由 {@link ContextConfig#getContext()} 生成, 线程安全, 可以在多个线程中同时获取组件
+ */
 public interface Context {
     <T> Optional<T> get(Class<T> componentClass);
+
+    /**
+     * 按类型和 Qualifier 获取组件, 类型可以带泛型参数
+     */
+    <T> Optional<T> get(ComponentRef<T> ref);
+
+    /**
+     * 与 {@link #get(Class)} 相同, 但不包装为 Optional, 组件不存在时抛出 NoSuchElementException
+     * <p>
+     * 获取已创建的 Singleton 时不分配对象, 创建组件时只分配组件实例本身
+     */
+    <T> T getInstance(Class<T> componentClass);
+
+    <T> T getInstance(ComponentRef<T> ref);
+
+    /**
+     * 异步获取组件, 依赖中有 Scope 的组件(例如 Singleton)在 executor 中并行创建, 互不依赖的组件互不等待;
+     * 通过 {@link ContextConfig#bindAsync} 注册的组件等待其 future 完成, 不占用线程
+     * <p>
+     * 没有 Scope 的组件每次注入都是新实例, 由依赖它的组件在创建时同步创建, 互不依赖的此类组件也不会并行初始化;
+     * 初始化耗时(例如需要 I/O)的组件应当声明 Scope 或通过 bindAsync 注册
+     * <p>
+     * 组件不存在时返回的 future 以 NoSuchElementException 结束
+     */
+    <T> CompletableFuture<T> getAsync(Class<T> componentClass, Executor executor);
+
+    <T> CompletableFuture<T> getAsync(ComponentRef<T> ref, Executor executor);
 }
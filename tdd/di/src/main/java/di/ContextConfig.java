@@ -1,6 +1,23 @@
 package di;
 
+import jakarta.inject.Qualifier;
+import jakarta.inject.Singleton;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import static java.util.Arrays.stream;
 
 
 /**
@@ -12,54 +29,475 @@ import java.util.*;
  */
 public class ContextConfig {
 
-    private final Map<Class<?>, ComponentProvider<?>> providers = new HashMap<>();
+    private final Map<ComponentRef<?>, ComponentProvider<?>> providers = new ConcurrentHashMap<>();
 
-    public <ComponentType> void bind(Class<ComponentType> type, ComponentType instance) {
-        providers.put(type, new ComponentProvider<ComponentType>() {
-            @Override
-            public ComponentType get(Context context) {
-                return instance;
-            }
+    private final Map<Class<? extends Annotation>, ScopeProvider> scopes = new ConcurrentHashMap<>();
+
+    private final Multibindings multibindings = new Multibindings();
+
+    /**
+     * 为 true 时优先使用编译期生成的组件工厂, 没有生成工厂的组件仍然通过反射注入
+     */
+    private final boolean preferGeneratedFactories;
+
+    private volatile ResolutionMetrics metrics;
+
+    /**
+     * 父 Context, 没有时为 null
+     */
+    private final ResolutionPlan parent;
+
+    public ContextConfig() {
+        this(false);
+    }
+
+    public ContextConfig(boolean preferGeneratedFactories) {
+        this(preferGeneratedFactories, null);
+        scope(Singleton.class, SingletonProvider::new);
+    }
+
+    /**
+     * 子容器只保存自己注册的组件和 Scope, 其余组件和 Scope 从父 Context 获取, 父 Context 不会被复制
+     * <p>
+     * 子容器中的组件可以依赖父 Context 中的组件, 同类型的注册覆盖父 Context 中的组件;
+     * 父 Context 中的组件已经冻结, 仍然注入父 Context 中的依赖
+     *
+     * @param parent 由 {@link #getContext()} 生成的 Context
+     */
+    public ContextConfig(Context parent) {
+        this(false, parent(parent));
+    }
+
+    private ContextConfig(boolean preferGeneratedFactories, ResolutionPlan parent) {
+        this.preferGeneratedFactories = preferGeneratedFactories;
+        this.parent = parent;
+    }
+
+    private static ResolutionPlan parent(Context parent) {
+        if (!(parent instanceof ResolutionPlan plan)) {
+            throw new IllegalArgumentException();
+        }
+        return plan;
+    }
+
+    /**
+     * @param qualifiers 指定 Qualifier 时, 组件按每个 Qualifier 分别注册
+     */
+    public <ComponentType> void bind(Class<ComponentType> type, ComponentType instance, Annotation... qualifiers) {
+        bind(type, instance(instance), qualifiers);
+    }
+
+    /**
+     * 注册带泛型参数或 Qualifier 的组件实例
+     */
+    public <ComponentType> void bind(ComponentRef<ComponentType> ref, ComponentType instance) {
+        providers.put(ref.key(), instance(instance));
+    }
+
+    /**
+     * @param qualifiers 没有指定 Qualifier 时, 使用实现类上标注的 Qualifier
+     */
+    public <Type, Implementation> void bind(Class<Type> componentClass, Class<Implementation> implementation, Annotation... qualifiers) {
+        if (qualifiers.length == 0) {
+            qualifiers = qualifiersOf(implementation);
+        }
+        bind(componentClass, provider(implementation, scopeOf(implementation)), qualifiers);
+    }
+
+    private static Annotation[] qualifiersOf(Class<?> implementation) {
+        return stream(implementation.getAnnotations())
+            .filter(a -> a.annotationType().isAnnotationPresent(Qualifier.class))
+            .toArray(Annotation[]::new);
+    }
+
+    /**
+     * 注册组件时额外指定 Scope, 覆盖实现类上的 Scope 标注; 与不指定 Scope 时一样使用实现类上标注的 Qualifier
+     */
+    public <Type, Implementation> void bind(Class<Type> componentClass, Class<Implementation> implementation, Class<? extends Annotation> scope) {
+        bind(componentClass, provider(implementation, scope), qualifiersOf(implementation));
+    }
+
+    /**
+     * 注册带泛型参数或 Qualifier 的组件
+     */
+    public <Type, Implementation> void bind(ComponentRef<Type> ref, Class<Implementation> implementation) {
+        providers.put(ref.key(), provider(implementation, scopeOf(implementation)));
+    }
 
-            @Override
-            public List<Class<?>> getDependencies() {
-                return List.of();
+    private void bind(Class<?> type, ComponentProvider<?> provider, Annotation[] qualifiers) {
+        refs(type, qualifiers).forEach(ref -> providers.put(ref, provider));
+    }
+
+    /**
+     * 先校验全部 Qualifier, 避免只注册了一部分
+     */
+    private static List<ComponentRef<?>> refs(Class<?> type, Annotation[] qualifiers) {
+        if (qualifiers.length == 0) {
+            return List.of(ComponentRef.of(type));
+        }
+        return stream(qualifiers).<ComponentRef<?>>map(qualifier -> ComponentRef.of(type, qualifier)).toList();
+    }
+
+    /**
+     * 使用当前线程的 ClassLoader 扫描, 见 {@link #scan(ClassLoader, String)}
+     */
+    public void scan(String packageName) {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        scan(loader != null ? loader : ContextConfig.class.getClassLoader(), packageName);
+    }
+
+    /**
+     * 注册 packageName 及其子包中声明了 Inject 成员的组件, 优先读取编译期生成的索引, 没有索引时扫描 class 文件
+     * <p>
+     * 组件按实现类注册, Qualifier 和 Scope 取自实现类上的标注; 只有一个扫描到的实现类的接口注册为该实现类的别名,
+     * 与实现类共享同一个实例。已经注册的组件不会被覆盖
+     */
+    public void scan(ClassLoader loader, String packageName) {
+        Map<ComponentRef<?>, List<ComponentRef<?>>> aliases = new LinkedHashMap<>();
+        for (Class<?> component : ComponentScanner.scan(loader, packageName)) {
+            Annotation[] qualifiers = qualifiersOf(component);
+            List<ComponentRef<?>> refs = refs(component, qualifiers);
+            if (refs.stream().noneMatch(providers::containsKey)) {
+                ComponentProvider<?> provider = provider(component, scopeOf(component));
+                refs.forEach(ref -> providers.put(ref, provider));
+            }
+            for (Class<?> type : component.getInterfaces()) {
+                List<ComponentRef<?>> interfaceRefs = refs(type, qualifiers);
+                for (int i = 0; i < refs.size(); i++) {
+                    aliases.computeIfAbsent(interfaceRefs.get(i), alias -> new ArrayList<>()).add(refs.get(i));
+                }
+            }
+        }
+        aliases.forEach((alias, targets) -> {
+            if (targets.size() == 1 && !providers.containsKey(alias)) {
+                providers.put(alias, new AliasProvider<>(targets.get(0)));
             }
         });
     }
 
-    public <Type, Implementation> void bind(Class<Type> componentClass, Class<Implementation> implementation) {
-        providers.put(componentClass, new ConstructorInjectProvider(implementation));
+    /**
+     * 向 Set&lt;Type&gt; 和 List&lt;Type&gt; 中添加一个实例, List 按注册顺序排列
+     */
+    public <Type> void contribute(Class<Type> type, Type instance) {
+        multibindings.add(type, instance(instance));
+    }
+
+    public <Type, Implementation> void contribute(Class<Type> type, Class<Implementation> implementation) {
+        multibindings.add(type, provider(implementation, scopeOf(implementation)));
+    }
+
+    /**
+     * 向 Map&lt;Key, Type&gt; 中添加一个实例, 同一个 Map 中的 key 不能重复
+     */
+    public <Key, Type> void contribute(Class<Key> keyType, Key key, Class<Type> type, Type instance) {
+        multibindings.put(keyType, key, type, instance(instance));
+    }
+
+    public <Key, Type, Implementation> void contribute(Class<Key> keyType, Key key, Class<Type> type, Class<Implementation> implementation) {
+        multibindings.put(keyType, key, type, provider(implementation, scopeOf(implementation)));
     }
 
+    private static <ComponentType> ComponentProvider<ComponentType> instance(ComponentType instance) {
+        return new InstanceProvider<>(instance);
+    }
+
+    /**
+     * 注册异步创建的组件, 在每个 Context 中只调用一次 factory, 之后一直使用 future 的结果
+     * <p>
+     * 通过 {@link Context#getAsync} 获取时不阻塞线程, 通过 {@link Context#get} 获取时等待 future 完成;
+     * future 失败时, 之后每次获取都抛出同样的异常
+     */
+    public <ComponentType> void bindAsync(Class<ComponentType> type, Supplier<? extends CompletionStage<? extends ComponentType>> factory) {
+        providers.put(ComponentRef.of(type), new AsyncProvider<>(factory));
+    }
+
+    /**
+     * 异步创建的组件, 由解析计划按 Context 缓存创建结果; 和实例绑定一样, 加载快照前需要重新注册
+     */
+    static final class AsyncProvider<T> implements ComponentProvider<T> {
+        private final Supplier<? extends CompletionStage<? extends T>> factory;
+
+        AsyncProvider(Supplier<? extends CompletionStage<? extends T>> factory) {
+            this.factory = factory;
+        }
+
+        CompletableFuture<Object> start() {
+            return factory.get().toCompletableFuture().thenApply(instance -> instance);
+        }
+
+        /**
+         * 每次调用都开始一次新的创建并等待完成, future 失败时抛出失败的原因
+         */
+        @Override
+        public T get(Object[] dependencies) {
+            return (T) join(start());
+        }
+
+        static Object join(CompletableFuture<Object> future) {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        @Override
+        public List<ComponentRef<?>> getDependencies() {
+            return List.of();
+        }
+    }
+
+    /**
+     * 实例绑定无法保存到快照中, 加载快照前需要重新注册
+     */
+    static final class InstanceProvider<T> implements ComponentProvider<T> {
+        private final T instance;
+
+        InstanceProvider(T instance) {
+            this.instance = instance;
+        }
+
+        @Override
+        public T get(Object[] dependencies) {
+            return instance;
+        }
+
+        @Override
+        public List<ComponentRef<?>> getDependencies() {
+            return List.of();
+        }
+    }
+
+    /**
+     * 获取另一个组件, 与其共享 Scope 和实例
+     */
+    static final class AliasProvider<T> implements ComponentProvider<T> {
+        private static final MethodHandle IDENTITY = MethodHandles.identity(Object.class);
+
+        final ComponentRef<?> target;
+
+        private final List<ComponentRef<?>> dependencies;
+
+        AliasProvider(ComponentRef<?> target) {
+            this.target = target;
+            this.dependencies = List.of(target);
+        }
+
+        @Override
+        public T get(Object[] dependencies) {
+            return (T) dependencies[0];
+        }
+
+        @Override
+        public List<ComponentRef<?>> getDependencies() {
+            return dependencies;
+        }
+
+        @Override
+        public MethodHandle getInstantiator() {
+            return IDENTITY;
+        }
+    }
+
+    /**
+     * 之后生成的 Context 将解析统计记录到 metrics 中, 传入 null 关闭统计
+     */
+    public void instrument(ResolutionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public <ScopeType extends Annotation> void scope(Class<ScopeType> scope, ScopeProvider provider) {
+        scopes.put(scope, provider);
+    }
+
+    private <Implementation> ComponentProvider<Implementation> provider(Class<Implementation> implementation, Class<? extends Annotation> scope) {
+        if (preferGeneratedFactories) {
+            Optional<ComponentFactory<Implementation>> factory = GeneratedFactories.find(implementation);
+            if (factory.isPresent()) {
+                return new FactoryProvider<>(implementation, factory.get(), scope);
+            }
+        }
+        return new ConstructorInjectProvider<>(implementation, scope);
+    }
+
+    static Class<? extends Annotation> scopeOf(Class<?> implementation) {
+        List<Class<? extends Annotation>> scopes = InjectionMetadata.scopesOf(implementation);
+        if (scopes.size() > 1) {
+            throw new IllegalComponentException();
+        }
+        return scopes.stream().findFirst().orElse(null);
+    }
+
+    /**
+     * 对当前注册的组件做快照后校验并生成 Context, 之后的注册不会影响已生成的 Context
+     * <p>
+     * 多重绑定的集合与直接绑定的组件类型相同时抛出异常
+     * <p>
+     * 子容器只校验和编译自己注册的组件, 耗时与父 Context 的大小无关
+     */
     public Context getContext() {
-        providers.keySet().forEach(component -> checkDependencies(component, new Stack<>()));
-        return new Context() {
-            @Override
-            public <T> Optional<T> get(Class<T> componentClass) {
-                return Optional.ofNullable(providers.get(componentClass)).map(provider -> (T) provider.get(this));
+        Map<ComponentRef<?>, ComponentProvider<?>> providers = providers();
+        Map<Class<? extends Annotation>, ScopeProvider> scopes = new HashMap<>();
+        if (parent != null) {
+            scopes.putAll(parent.scopes);
+        }
+        scopes.putAll(this.scopes);
+        return ResolutionPlan.compile(providers, checkDependencies(providers, parent), Map.copyOf(scopes), metrics, parent);
+    }
+
+    private Map<ComponentRef<?>, ComponentProvider<?>> providers() {
+        Map<ComponentRef<?>, ComponentProvider<?>> snapshot = new HashMap<>(this.providers);
+        multibindings.expand(snapshot);
+        return Map.copyOf(snapshot);
+    }
+
+    /**
+     * 校验当前注册的组件, 将组件图和注入信息导出为快照, 之后通过 {@link #getContext(InputStream)} 加载
+     * <p>
+     * 只支持没有父 Context 的容器
+     */
+    public void export(OutputStream out) throws IOException {
+        if (parent != null) {
+            throw new IllegalStateException("child context can not be exported");
+        }
+        Map<ComponentRef<?>, ComponentProvider<?>> providers = providers();
+        ContextSnapshot.write(providers, checkDependencies(providers, null), out);
+    }
+
+    /**
+     * 从快照生成 Context, 不扫描实现类, 也不检查依赖
+     * <p>
+     * 实例绑定和实例的多重绑定需要在加载前按导出时的顺序重新注册, 实现类无需重新注册;
+     * 实现类已经改变或注册与快照不一致时抛出 {@link StaleSnapshotException}, 此时可以回退到 {@link #getContext()}
+     */
+    public Context getContext(InputStream snapshot) throws IOException {
+        if (parent != null) {
+            throw new IllegalStateException("child context can not be loaded from snapshot");
+        }
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        ContextSnapshot.Graph graph = ContextSnapshot.read(snapshot, providers(), loader != null ? loader : ContextConfig.class.getClassLoader());
+        return ResolutionPlan.compile(graph.providers(), graph.order(), Map.copyOf(scopes), metrics, null);
+    }
+
+    /**
+     * 生成 Context 后立即创建所有 Singleton 组件, 互不依赖的组件在 executor 中并行创建
+     * <p>
+     * 有组件创建失败时, 按组件名排序抛出第一个异常, 其余异常作为 suppressed 附加在上面
+     */
+    public Context getContext(Executor executor) {
+        ResolutionPlan context = (ResolutionPlan) getContext();
+        context.warmUp(executor);
+        return context;
+    }
+
+    /**
+     * 一次深度优先遍历完成依赖检查, 每个组件和每条依赖边只访问一次
+     * <p>
+     * 父 Context 已经校验过, 且其中的组件不会依赖子容器中的组件, 遍历到父 Context 中的组件时不再继续
+     *
+     * @return 按拓扑顺序排列的组件, 直接注入的依赖排在被依赖的组件之前
+     */
+    private static List<ComponentRef<?>> checkDependencies(Map<ComponentRef<?>, ComponentProvider<?>> providers, ResolutionPlan parent) {
+        Map<ComponentRef<?>, Boolean> visited = new HashMap<>(providers.size() * 2);
+        List<ComponentRef<?>> order = new ArrayList<>(providers.size());
+        for (ComponentRef<?> component : providers.keySet()) {
+            if (!visited.containsKey(component)) {
+                checkDependencies(providers, parent, component, visited, order);
             }
-        };
+        }
+        return order;
     }
 
-    private void checkDependencies(Class<?> component, Stack<Class<?>> visiting) {
-        for (Class<?> dependency : providers.get(component).getDependencies()) {
+    /**
+     * @param visited false 表示正在访问(位于当前路径上), true 表示已完成检查
+     */
+    private static void checkDependencies(Map<ComponentRef<?>, ComponentProvider<?>> providers, ResolutionPlan parent,
+                                          ComponentRef<?> component, Map<ComponentRef<?>, Boolean> visited, List<ComponentRef<?>> order) {
+        Deque<Visiting> path = new ArrayDeque<>();
+        path.push(new Visiting(component, providers.get(component).getDependencies()));
+        visited.put(component, false);
+        while (!path.isEmpty()) {
+            Visiting current = path.peek();
+            if (current.next == current.dependencies.size()) {
+                path.pop();
+                visited.put(current.component, true);
+                order.add(current.component);
+                continue;
+            }
+            ComponentRef<?> ref = current.dependencies.get(current.next++);
+            ComponentRef<?> dependency = ref.key();
             if (!providers.containsKey(dependency)) {
-                throw new DependencyNotFoundException(dependency, component);
+                if (parent != null && parent.node(dependency) != null) {
+                    continue;
+                }
+                throw new DependencyNotFoundException(dependency, current.component);
+            }
+            if (!ref.isDirect()) {
+                // 通过 Provider 或延迟代理注入时不会立即创建依赖, 不构成循环依赖
+                continue;
+            }
+            Boolean checked = visited.get(dependency);
+            if (checked == null) {
+                path.push(new Visiting(dependency, providers.get(dependency).getDependencies()));
+                visited.put(dependency, false);
+            } else if (!checked) {
+                throw new CycleDependenciesFoundException(cycle(path, dependency));
             }
-            if (visiting.contains(dependency)) {
-                throw new CycleDependenciesFoundException(visiting);
+        }
+    }
+
+    private static List<ComponentRef<?>> cycle(Deque<Visiting> path, ComponentRef<?> dependency) {
+        List<ComponentRef<?>> cycle = new ArrayList<>();
+        Iterator<Visiting> iterator = path.descendingIterator();
+        while (iterator.hasNext()) {
+            ComponentRef<?> component = iterator.next().component;
+            if (component.equals(dependency) || !cycle.isEmpty()) {
+                cycle.add(component);
             }
-            visiting.push(dependency);
-            checkDependencies(dependency, visiting);
-            visiting.pop();
+        }
+        cycle.add(dependency);
+        return cycle;
+    }
+
+    private static class Visiting {
+        final ComponentRef<?> component;
+        final List<ComponentRef<?>> dependencies;
+        int next;
+
+        Visiting(ComponentRef<?> component, List<ComponentRef<?>> dependencies) {
+            this.component = component;
+            this.dependencies = dependencies;
         }
     }
 
     interface ComponentProvider<T> {
-        T get(Context context);
+        /**
+         * @param dependencies 依赖实例, 按 getDependencies() 的顺序排列
+         */
+        T get(Object[] dependencies);
+
+        List<ComponentRef<?>> getDependencies();
 
-        List<Class<?>> getDependencies();
+        /**
+         * @return Scope 标注, 没有 Scope 时每次获取都创建新实例
+         */
+        default Class<? extends Annotation> getScope() {
+            return null;
+        }
+
+        /**
+         * @return 逐个接收依赖的实例化句柄, 类型为 (Object, ..., Object)Object, 参数按 getDependencies() 的顺序排列;
+         * 为 null 时通过 {@link #get(Object[])} 创建
+         */
+        default MethodHandle getInstantiator() {
+            return null;
+        }
     }
 
 }
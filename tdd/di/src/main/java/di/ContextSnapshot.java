@@ -0,0 +1,492 @@
+package di;
+
+import java.io.*;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+import static java.util.Arrays.stream;
+
+/**
+ * 校验后的组件图的二进制快照
+ * <p>
+ * 按拓扑顺序保存每个组件的引用, 实现类, Scope 和注入成员, 并记录实现类及其父类 class 文件的 CRC32;
+ * 加载时按名字直接定位注入成员, 不再扫描类, 也不再检查依赖, 哈希不一致时抛出 {@link StaleSnapshotException}
+ * <p>
+ * 实例无法保存, 快照中只记录实例绑定和异步组件的引用, 加载时从当前注册中获取;
+ * 重新注册的组件的实现类, Scope, 别名或集合元素与快照不一致时同样抛出 StaleSnapshotException
+ */
+final class ContextSnapshot {
+
+    private static final int MAGIC = 0x44494753;
+
+    private static final int VERSION = 1;
+
+    private static final byte INSTANCE = 0;
+    private static final byte CONSTRUCTOR = 1;
+    private static final byte FACTORY = 2;
+    private static final byte ELEMENTS = 3;
+    private static final byte ALIAS = 4;
+
+    private static final byte NONE = 0;
+    private static final byte CLASS = 1;
+    private static final byte PARAMETERIZED = 2;
+
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte CHAR = 5;
+    private static final byte BYTE = 6;
+    private static final byte SHORT = 7;
+    private static final byte FLOAT = 8;
+    private static final byte DOUBLE = 9;
+    private static final byte ENUM = 10;
+    private static final byte TYPE = 11;
+
+    private static final Map<String, Class<?>> PRIMITIVES = Map.of(
+        "int", int.class, "long", long.class, "boolean", boolean.class, "char", char.class,
+        "byte", byte.class, "short", short.class, "float", float.class, "double", double.class, "void", void.class);
+
+    private ContextSnapshot() {
+    }
+
+    /**
+     * @param order 按拓扑顺序排列的组件
+     */
+    record Graph(Map<ComponentRef<?>, ContextConfig.ComponentProvider<?>> providers, List<ComponentRef<?>> order) {
+    }
+
+    /**
+     * 组件的类型, Qualifier 或 Map 的 key 无法保存时抛出 IllegalComponentException
+     */
+    static void write(Map<ComponentRef<?>, ContextConfig.ComponentProvider<?>> providers, List<ComponentRef<?>> order,
+                      OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(order.size());
+        for (ComponentRef<?> component : order) {
+            writeRef(data, component);
+            ContextConfig.ComponentProvider<?> provider = providers.get(component);
+            if (provider instanceof ContextConfig.InstanceProvider<?> || provider instanceof ContextConfig.AsyncProvider<?>) {
+                data.writeByte(INSTANCE);
+            } else if (provider instanceof ConstructorInjectProvider<?> constructor) {
+                InjectionMetadata metadata = constructor.getMetadata();
+                data.writeByte(CONSTRUCTOR);
+                writeImplementation(data, metadata.component, provider.getScope());
+                writeClasses(data, metadata.injectConstructor.getParameterTypes());
+                data.writeInt(metadata.injectFields.size());
+                for (Field field : metadata.injectFields) {
+                    data.writeUTF(field.getDeclaringClass().getName());
+                    data.writeUTF(field.getName());
+                }
+                data.writeInt(metadata.injectMethods.size());
+                for (Method method : metadata.injectMethods) {
+                    data.writeUTF(method.getDeclaringClass().getName());
+                    data.writeUTF(method.getName());
+                    writeClasses(data, method.getParameterTypes());
+                }
+            } else if (provider instanceof FactoryProvider<?> factory) {
+                data.writeByte(FACTORY);
+                writeImplementation(data, factory.component, provider.getScope());
+            } else if (provider instanceof Multibindings.ElementsProvider elements) {
+                data.writeByte(ELEMENTS);
+                data.writeByte(elements.kind.ordinal());
+                List<ComponentRef<?>> dependencies = elements.getDependencies();
+                data.writeInt(dependencies.size());
+                for (int i = 0; i < dependencies.size(); i++) {
+                    writeRef(data, dependencies.get(i));
+                    if (elements.keys != null) {
+                        writeValue(data, elements.keys.get(i));
+                    }
+                }
+            } else if (provider instanceof ContextConfig.AliasProvider<?> alias) {
+                data.writeByte(ALIAS);
+                writeRef(data, alias.target);
+            } else {
+                throw new IllegalComponentException();
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * @param registered 当前注册的组件, 提供快照中的实例绑定
+     */
+    static Graph read(InputStream in, Map<ComponentRef<?>, ContextConfig.ComponentProvider<?>> registered,
+                      ClassLoader loader) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new StaleSnapshotException("not a snapshot of this version");
+        }
+        Reader reader = new Reader(data, loader);
+        int size = data.readInt();
+        Map<ComponentRef<?>, ContextConfig.ComponentProvider<?>> providers = new HashMap<>(size * 2);
+        List<ComponentRef<?>> order = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ComponentRef<?> component = reader.readRef();
+            ContextConfig.ComponentProvider<?> provider = switch (data.readByte()) {
+                case INSTANCE -> {
+                    ContextConfig.ComponentProvider<?> instance = registered.get(component);
+                    if (!(instance instanceof ContextConfig.InstanceProvider<?>) && !(instance instanceof ContextConfig.AsyncProvider<?>)) {
+                        throw new StaleSnapshotException("instance not registered: " + component);
+                    }
+                    yield instance;
+                }
+                case CONSTRUCTOR -> reader.readConstructor();
+                case FACTORY -> reader.readFactory();
+                case ELEMENTS -> reader.readElements();
+                case ALIAS -> new ContextConfig.AliasProvider<>(reader.readRef());
+                default -> throw new StaleSnapshotException("unknown binding: " + component);
+            };
+            ContextConfig.ComponentProvider<?> current = registered.get(component);
+            if (current != null && !sameBinding(current, provider)) {
+                throw new StaleSnapshotException("binding changed: " + component);
+            }
+            providers.put(component, provider);
+            order.add(component);
+        }
+        for (ComponentRef<?> component : registered.keySet()) {
+            if (!providers.containsKey(component)) {
+                throw new StaleSnapshotException("not in snapshot: " + component);
+            }
+        }
+        return new Graph(Map.copyOf(providers), List.copyOf(order));
+    }
+
+    /**
+     * 实现类的注册只比较实现类和 Scope, 不区分通过构造函数注入还是生成的工厂创建
+     */
+    private static boolean sameBinding(ContextConfig.ComponentProvider<?> registered, ContextConfig.ComponentProvider<?> snapshot) {
+        if (registered == snapshot) {
+            return true;
+        }
+        Class<?> implementation = implementation(registered);
+        if (implementation != null) {
+            return implementation == implementation(snapshot) && Objects.equals(registered.getScope(), snapshot.getScope());
+        }
+        if (registered instanceof ContextConfig.AliasProvider<?> alias) {
+            return snapshot instanceof ContextConfig.AliasProvider<?> other && alias.target.equals(other.target);
+        }
+        if (registered instanceof Multibindings.ElementsProvider elements) {
+            if (!(snapshot instanceof Multibindings.ElementsProvider other) || elements.kind != other.kind) {
+                return false;
+            }
+            // 加载前只需要重新注册实例元素, 当前注册的元素是快照中元素的一部分, 每个元素由其自身的注册比较
+            List<ComponentRef<?>> contributed = elements.getDependencies();
+            for (int i = 0; i < contributed.size(); i++) {
+                int index = other.getDependencies().indexOf(contributed.get(i));
+                if (index < 0 || (elements.keys != null && !elements.keys.get(i).equals(other.keys.get(index)))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static Class<?> implementation(ContextConfig.ComponentProvider<?> provider) {
+        if (provider instanceof ConstructorInjectProvider<?> constructor) {
+            return constructor.getMetadata().component;
+        }
+        if (provider instanceof FactoryProvider<?> factory) {
+            return factory.component;
+        }
+        return null;
+    }
+
+    /**
+     * 实现类及其父类(不含 JDK 中的类) class 文件的 CRC32, 找不到 class 文件的类不参与计算
+     */
+    static long hash(Class<?> component) {
+        CRC32 crc = new CRC32();
+        for (Class<?> current = component; current != null && current.getClassLoader() != null; current = current.getSuperclass()) {
+            String name = current.getName();
+            try (InputStream bytes = current.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+                if (bytes != null) {
+                    crc.update(bytes.readAllBytes());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static void writeImplementation(DataOutputStream data, Class<?> component, Class<? extends Annotation> scope) throws IOException {
+        data.writeUTF(component.getName());
+        data.writeLong(hash(component));
+        data.writeUTF(scope == null ? "" : scope.getName());
+    }
+
+    private static void writeClasses(DataOutputStream data, Class<?>[] classes) throws IOException {
+        data.writeInt(classes.length);
+        for (Class<?> type : classes) {
+            data.writeUTF(type.getName());
+        }
+    }
+
+    private static void writeRef(DataOutputStream data, ComponentRef<?> ref) throws IOException {
+        writeType(data, ref.getType());
+        Annotation qualifier = ref.getQualifier();
+        if (qualifier == null) {
+            data.writeBoolean(false);
+        } else {
+            data.writeBoolean(true);
+            data.writeUTF(qualifier.annotationType().getName());
+            Method[] members = members(qualifier.annotationType());
+            data.writeInt(members.length);
+            for (Method member : members) {
+                data.writeUTF(member.getName());
+                try {
+                    writeValue(data, member.invoke(qualifier));
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalComponentException();
+                }
+            }
+        }
+        data.writeBoolean(ref.isProvider());
+        data.writeBoolean(ref.isLazy());
+    }
+
+    private static void writeType(DataOutputStream data, Type type) throws IOException {
+        if (type == null) {
+            data.writeByte(NONE);
+        } else if (type instanceof Class<?> component) {
+            data.writeByte(CLASS);
+            data.writeUTF(component.getName());
+        } else if (type instanceof ParameterizedType parameterized) {
+            data.writeByte(PARAMETERIZED);
+            writeType(data, parameterized.getOwnerType());
+            writeType(data, parameterized.getRawType());
+            Type[] arguments = parameterized.getActualTypeArguments();
+            data.writeInt(arguments.length);
+            for (Type argument : arguments) {
+                writeType(data, argument);
+            }
+        } else {
+            // 通配符和类型变量不会出现在组件类型中
+            throw new IllegalComponentException();
+        }
+    }
+
+    private static void writeValue(DataOutputStream data, Object value) throws IOException {
+        if (value instanceof String string) {
+            data.writeByte(STRING);
+            data.writeUTF(string);
+        } else if (value instanceof Integer number) {
+            data.writeByte(INT);
+            data.writeInt(number);
+        } else if (value instanceof Long number) {
+            data.writeByte(LONG);
+            data.writeLong(number);
+        } else if (value instanceof Boolean bool) {
+            data.writeByte(BOOLEAN);
+            data.writeBoolean(bool);
+        } else if (value instanceof Character character) {
+            data.writeByte(CHAR);
+            data.writeChar(character);
+        } else if (value instanceof Byte number) {
+            data.writeByte(BYTE);
+            data.writeByte(number);
+        } else if (value instanceof Short number) {
+            data.writeByte(SHORT);
+            data.writeShort(number);
+        } else if (value instanceof Float number) {
+            data.writeByte(FLOAT);
+            data.writeFloat(number);
+        } else if (value instanceof Double number) {
+            data.writeByte(DOUBLE);
+            data.writeDouble(number);
+        } else if (value instanceof Enum<?> constant) {
+            data.writeByte(ENUM);
+            data.writeUTF(constant.getDeclaringClass().getName());
+            data.writeUTF(constant.name());
+        } else if (value instanceof Class<?> component) {
+            data.writeByte(TYPE);
+            data.writeUTF(component.getName());
+        } else {
+            throw new IllegalComponentException();
+        }
+    }
+
+    private static Method[] members(Class<? extends Annotation> annotationType) {
+        Method[] members = annotationType.getDeclaredMethods();
+        Arrays.sort(members, Comparator.comparing(Method::getName));
+        for (Method member : members) {
+            member.setAccessible(true);
+        }
+        return members;
+    }
+
+    private static final class Reader {
+        private final DataInputStream data;
+
+        private final ClassLoader loader;
+
+        Reader(DataInputStream data, ClassLoader loader) {
+            this.data = data;
+            this.loader = loader;
+        }
+
+        ContextConfig.ComponentProvider<?> readConstructor() throws IOException {
+            Class<?> component = readImplementation();
+            Class<? extends Annotation> scope = readScope();
+            try {
+                Constructor<?> constructor = component.getDeclaredConstructor(readClasses());
+                List<Field> fields = new ArrayList<>();
+                for (int i = data.readInt(); i > 0; i--) {
+                    fields.add(loadClass(data.readUTF()).getDeclaredField(data.readUTF()));
+                }
+                List<Method> methods = new ArrayList<>();
+                for (int i = data.readInt(); i > 0; i--) {
+                    Class<?> declaring = loadClass(data.readUTF());
+                    methods.add(declaring.getDeclaredMethod(data.readUTF(), readClasses()));
+                }
+                return new ConstructorInjectProvider<>(InjectionMetadata.of(component, constructor, fields, methods), scope);
+            } catch (NoSuchMethodException | NoSuchFieldException e) {
+                throw new StaleSnapshotException("injection point changed: " + component.getName(), e);
+            }
+        }
+
+        ContextConfig.ComponentProvider<?> readFactory() throws IOException {
+            Class<Object> component = (Class<Object>) readImplementation();
+            Class<? extends Annotation> scope = readScope();
+            ComponentFactory<Object> factory = GeneratedFactories.find(component)
+                .orElseThrow(() -> new StaleSnapshotException("generated factory not found: " + component.getName()));
+            return new FactoryProvider<>(component, factory, scope);
+        }
+
+        ContextConfig.ComponentProvider<?> readElements() throws IOException {
+            Multibindings.ElementsProvider.Kind kind = Multibindings.ElementsProvider.Kind.values()[data.readByte()];
+            int size = data.readInt();
+            List<ComponentRef<?>> elements = new ArrayList<>(size);
+            List<Object> keys = kind == Multibindings.ElementsProvider.Kind.MAP ? new ArrayList<>(size) : null;
+            for (int i = 0; i < size; i++) {
+                elements.add(readRef());
+                if (keys != null) {
+                    keys.add(readValue());
+                }
+            }
+            return new Multibindings.ElementsProvider(kind, elements, keys);
+        }
+
+        private Class<?> readImplementation() throws IOException {
+            Class<?> component = loadClass(data.readUTF());
+            if (hash(component) != data.readLong()) {
+                throw new StaleSnapshotException("class changed: " + component.getName());
+            }
+            return component;
+        }
+
+        private Class<? extends Annotation> readScope() throws IOException {
+            String scope = data.readUTF();
+            return scope.isEmpty() ? null : (Class<? extends Annotation>) loadClass(scope);
+        }
+
+        private Class<?>[] readClasses() throws IOException {
+            Class<?>[] classes = new Class<?>[data.readInt()];
+            for (int i = 0; i < classes.length; i++) {
+                classes[i] = loadClass(data.readUTF());
+            }
+            return classes;
+        }
+
+        ComponentRef<?> readRef() throws IOException {
+            Type type = readType();
+            Annotation qualifier = null;
+            if (data.readBoolean()) {
+                Class<? extends Annotation> annotationType = (Class<? extends Annotation>) loadClass(data.readUTF());
+                Map<String, Object> values = new HashMap<>();
+                for (int i = data.readInt(); i > 0; i--) {
+                    values.put(data.readUTF(), readValue());
+                }
+                qualifier = annotation(annotationType, values);
+            }
+            boolean provider = data.readBoolean();
+            boolean lazy = data.readBoolean();
+            return ComponentRef.of(type, qualifier, provider, lazy);
+        }
+
+        private Type readType() throws IOException {
+            return switch (data.readByte()) {
+                case NONE -> null;
+                case CLASS -> loadClass(data.readUTF());
+                case PARAMETERIZED -> {
+                    Type owner = readType();
+                    Class<?> raw = (Class<?>) readType();
+                    Type[] arguments = new Type[data.readInt()];
+                    for (int i = 0; i < arguments.length; i++) {
+                        arguments[i] = readType();
+                    }
+                    yield new Parameterized(owner, raw, arguments);
+                }
+                default -> throw new StaleSnapshotException("unknown type");
+            };
+        }
+
+        private Object readValue() throws IOException {
+            return switch (data.readByte()) {
+                case STRING -> data.readUTF();
+                case INT -> data.readInt();
+                case LONG -> data.readLong();
+                case BOOLEAN -> data.readBoolean();
+                case CHAR -> data.readChar();
+                case BYTE -> data.readByte();
+                case SHORT -> data.readShort();
+                case FLOAT -> data.readFloat();
+                case DOUBLE -> data.readDouble();
+                case ENUM -> {
+                    Class<?> type = loadClass(data.readUTF());
+                    String name = data.readUTF();
+                    yield stream(type.getEnumConstants()).filter(c -> ((Enum<?>) c).name().equals(name)).findFirst()
+                        .orElseThrow(() -> new StaleSnapshotException("enum constant not found: " + name));
+                }
+                case TYPE -> loadClass(data.readUTF());
+                default -> throw new StaleSnapshotException("unknown value");
+            };
+        }
+
+        private Class<?> loadClass(String name) {
+            Class<?> primitive = PRIMITIVES.get(name);
+            if (primitive != null) {
+                return primitive;
+            }
+            try {
+                return Class.forName(name, false, loader);
+            } catch (ClassNotFoundException e) {
+                throw new StaleSnapshotException("class not found: " + name, e);
+            }
+        }
+    }
+
+    /**
+     * 多重绑定的元素使用容器内部的 Qualifier 实现, 其他 Qualifier 使用遵循 Annotation 约定的代理
+     */
+    private static Annotation annotation(Class<? extends Annotation> type, Map<String, Object> values) {
+        if (type == Multibindings.Element.class) {
+            return Multibindings.element((String) values.get("collection"), (Integer) values.get("index"));
+        }
+        Method[] members = members(type);
+        return (Annotation) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+            switch (method.getName()) {
+                case "annotationType" -> type;
+                case "hashCode" -> stream(members).mapToInt(m -> (127 * m.getName().hashCode()) ^ values.get(m.getName()).hashCode()).sum();
+                case "toString" -> "@" + type.getName() + values;
+                case "equals" -> {
+                    if (!type.isInstance(args[0])) {
+                        yield false;
+                    }
+                    for (Method member : members) {
+                        if (!values.get(member.getName()).equals(member.invoke(args[0]))) {
+                            yield false;
+                        }
+                    }
+                    yield true;
+                }
+                default -> values.get(method.getName());
+            });
+    }
+}
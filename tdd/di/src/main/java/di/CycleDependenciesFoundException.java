@@ -1,8 +1,8 @@
 package di;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.Stack;
 
 /**
  * 循环依赖异常
@@ -13,11 +13,21 @@ import java.util.Stack;
 public class CycleDependenciesFoundException extends RuntimeException {
     private final Set<Class<?>> components = new HashSet<>();
 
-    public CycleDependenciesFoundException(Stack<Class<?>> visiting) {
-        components.addAll(visiting);
+    /**
+     * 循环路径, 首尾为同一个组件
+     */
+    private final List<Class<?>> path;
+
+    public CycleDependenciesFoundException(List<ComponentRef<?>> path) {
+        this.path = path.stream().<Class<?>>map(ComponentRef::getComponent).toList();
+        components.addAll(this.path);
     }
 
     public Set<Class<?>> getComponents() {
         return components;
     }
+
+    public List<Class<?>> getPath() {
+        return path;
+    }
 }
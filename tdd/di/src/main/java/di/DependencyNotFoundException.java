@@ -11,9 +11,19 @@ public class DependencyNotFoundException extends RuntimeException {
      */
     private Class<?> componentClass;
 
+    private final ComponentRef<?> dependencyRef;
+
+    private final ComponentRef<?> componentRef;
+
     public DependencyNotFoundException(Class<?> dependencyClass, Class<?> componentClass) {
-        this.dependencyClass = dependencyClass;
-        this.componentClass = componentClass;
+        this(ComponentRef.of(dependencyClass), ComponentRef.of(componentClass));
+    }
+
+    public DependencyNotFoundException(ComponentRef<?> dependency, ComponentRef<?> component) {
+        this.dependencyClass = dependency.getComponent();
+        this.componentClass = component.getComponent();
+        this.dependencyRef = dependency;
+        this.componentRef = component;
     }
 
     public Class<?> getDependency() {
@@ -23,4 +33,15 @@ public class DependencyNotFoundException extends RuntimeException {
     public Class<?> getComponent() {
         return componentClass;
     }
+
+    /**
+     * @return 依赖的类型和 Qualifier
+     */
+    public ComponentRef<?> getDependencyRef() {
+        return dependencyRef;
+    }
+
+    public ComponentRef<?> getComponentRef() {
+        return componentRef;
+    }
 }
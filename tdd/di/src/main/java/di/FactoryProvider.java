@@ -0,0 +1,41 @@
+package di;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+
+/**
+ * 使用编译期生成的工厂创建组件, 不做反射扫描
+ */
+class FactoryProvider<T> implements ContextConfig.ComponentProvider<T> {
+
+    final Class<T> component;
+
+    private final ComponentFactory<T> factory;
+
+    private final Class<? extends Annotation> scope;
+
+    private final List<ComponentRef<?>> dependencies;
+
+    FactoryProvider(Class<T> component, ComponentFactory<T> factory, Class<? extends Annotation> scope) {
+        this.component = component;
+        this.factory = factory;
+        this.scope = scope;
+        this.dependencies = factory.getDependencies().stream().<ComponentRef<?>>map(ComponentRef::of).toList();
+        Lifecycle.checkPreDestroy(component);
+    }
+
+    @Override
+    public T get(Object[] dependencies) {
+        return factory.create(dependencies);
+    }
+
+    @Override
+    public List<ComponentRef<?>> getDependencies() {
+        return dependencies;
+    }
+
+    @Override
+    public Class<? extends Annotation> getScope() {
+        return scope;
+    }
+}
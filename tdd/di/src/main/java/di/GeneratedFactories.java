@@ -0,0 +1,42 @@
+package di;
+
+import java.util.Optional;
+
+/**
+ * 查找编译期生成的组件工厂, 查找结果按类缓存
+ */
+final class GeneratedFactories {
+
+    static final String SUFFIX = "_Factory";
+
+    private static final ClassValue<Optional<ComponentFactory<?>>> CACHE = new ClassValue<>() {
+        @Override
+        protected Optional<ComponentFactory<?>> computeValue(Class<?> component) {
+            try {
+                Class<?> factory = Class.forName(factoryName(component), true, component.getClassLoader());
+                if (!ComponentFactory.class.isAssignableFrom(factory)) {
+                    return Optional.empty();
+                }
+                return Optional.of((ComponentFactory<?>) factory.getDeclaredConstructor().newInstance());
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return Optional.empty();
+            }
+        }
+    };
+
+    private GeneratedFactories() {
+    }
+
+    static <T> Optional<ComponentFactory<T>> find(Class<T> component) {
+        return CACHE.get(component).map(factory -> (ComponentFactory<T>) factory);
+    }
+
+    /**
+     * 与 processor 的命名规则一致: 包名不变, 嵌套类的 $ 替换为 _, 再加上 _Factory 后缀
+     */
+    static String factoryName(Class<?> component) {
+        String packageName = component.getPackageName();
+        String simpleName = packageName.isEmpty() ? component.getName() : component.getName().substring(packageName.length() + 1);
+        return (packageName.isEmpty() ? "" : packageName + ".") + simpleName.replace('$', '_') + SUFFIX;
+    }
+}
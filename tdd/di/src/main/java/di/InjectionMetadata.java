@@ -0,0 +1,224 @@
+package di;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Scope;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.stream;
+
+/**
+ * 组件类的注入信息
+ * <p>
+ * 通过 ClassValue 缓存, 每个类在 JVM 内只扫描一次, 多个 Context 绑定同一个实现类时共享
+ */
+final class InjectionMetadata {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ClassValue<InjectionMetadata> CACHE = new ClassValue<>() {
+        @Override
+        protected InjectionMetadata computeValue(Class<?> component) {
+            return new InjectionMetadata(component);
+        }
+    };
+
+    final Class<?> component;
+
+    final Constructor<?> injectConstructor;
+
+    final List<Field> injectFields;
+
+    final List<Method> injectMethods;
+
+    final List<ComponentRef<?>> dependencies;
+
+    /**
+     * 实现类上的 Scope 标注
+     */
+    final List<Class<? extends Annotation>> scopes;
+
+    /**
+     * 构造函数、字段注入、方法注入融合后的实例化句柄, 类型为 (Object[])Object, 参数按 dependencies 顺序排列
+     */
+    final MethodHandle instantiator;
+
+    /**
+     * 与 instantiator 相同, 但逐个接收依赖, 类型为 (Object, ..., Object)Object, 用于绑定依赖后去掉参数数组
+     */
+    final MethodHandle spreadInstantiator;
+
+    private InjectionMetadata(Class<?> component) {
+        this(component, getInjectConstructor(component), getInjectFields(component), getInjectMethods(component));
+    }
+
+    private InjectionMetadata(Class<?> component, Constructor<?> injectConstructor, List<Field> injectFields, List<Method> injectMethods) {
+        this.component = component;
+        this.injectConstructor = injectConstructor;
+        this.injectFields = List.copyOf(injectFields);
+        this.injectMethods = List.copyOf(injectMethods);
+        this.dependencies = Stream.concat(Stream.concat(stream(injectConstructor.getParameters()).map(InjectionMetadata::toComponentRef),
+                    injectFields.stream().map(InjectionMetadata::toComponentRef)),
+                injectMethods.stream().flatMap(m -> stream(m.getParameters()).map(InjectionMetadata::toComponentRef)))
+            .toList();
+        this.scopes = scopesOf(component);
+        this.spreadInstantiator = compile(injectConstructor, this.injectFields, this.injectMethods, dependencies.size());
+        this.instantiator = spreadInstantiator.asSpreader(Object[].class, dependencies.size());
+        Lifecycle.checkPreDestroy(component);
+    }
+
+    static InjectionMetadata of(Class<?> component) {
+        return CACHE.get(component);
+    }
+
+    /**
+     * 注入成员已知时直接使用, 不扫描类, 也不缓存
+     */
+    static InjectionMetadata of(Class<?> component, Constructor<?> injectConstructor, List<Field> injectFields, List<Method> injectMethods) {
+        return new InjectionMetadata(component, injectConstructor, injectFields, injectMethods);
+    }
+
+    private static ComponentRef<?> toComponentRef(Parameter parameter) {
+        return ComponentRef.of(parameter.getParameterizedType(), parameter.getAnnotations());
+    }
+
+    private static ComponentRef<?> toComponentRef(Field field) {
+        return ComponentRef.of(field.getGenericType(), field.getAnnotations());
+    }
+
+    /**
+     * 只在扫描时编译一次, 之后每次创建组件只需一次 invokeExact 调用, PostConstruct 方法也融合在同一个句柄中
+     *
+     * @return 类型为 (Object, ..., Object)Object 的句柄, 参数按 dependencies 顺序排列
+     */
+    private static MethodHandle compile(Constructor<?> constructor, List<Field> fields, List<Method> methods, int count) {
+        try {
+            MethodType dependencies = MethodType.genericMethodType(count);
+            MethodType injection = dependencies.insertParameterTypes(0, Object.class).changeReturnType(void.class);
+
+            constructor.setAccessible(true);
+            MethodHandle create = positional(LOOKUP.unreflectConstructor(constructor), 0, 0, dependencies);
+            int offset = constructor.getParameterCount();
+
+            List<MethodHandle> injectors = new ArrayList<>();
+            for (Field field : fields) {
+                field.setAccessible(true);
+                injectors.add(positional(LOOKUP.unreflectSetter(field), 1, offset++, injection));
+            }
+            for (Method method : methods) {
+                method.setAccessible(true);
+                injectors.add(positional(LOOKUP.unreflect(method), 1, offset, injection));
+                offset += method.getParameterCount();
+            }
+
+            MethodHandle postConstruct = Lifecycle.postConstruct(constructor.getDeclaringClass());
+            if (postConstruct != null) {
+                injectors.add(MethodHandles.dropArguments(postConstruct, 1, dependencies.parameterList()));
+            }
+
+            // (Object instance, Object... dependencies)Object, 依次执行注入和 PostConstruct 后返回 instance
+            MethodHandle inject = MethodHandles.dropArguments(MethodHandles.identity(Object.class), 1, dependencies.parameterList());
+            for (int i = injectors.size() - 1; i >= 0; i--) {
+                inject = MethodHandles.foldArguments(inject, injectors.get(i));
+            }
+            return MethodHandles.foldArguments(inject, create);
+        } catch (IllegalAccessException e) {
+            throw new IllegalComponentException();
+        }
+    }
+
+    /**
+     * 将 target 改为 type 类型: 前 leading 个参数不变, 其余参数依次对应 type 中第 leading + offset 个之后的依赖, 其他依赖忽略
+     */
+    private static MethodHandle positional(MethodHandle target, int leading, int offset, MethodType type) {
+        int count = target.type().parameterCount();
+        // 注入方法的返回值直接丢弃
+        MethodHandle handle = target.asType(MethodType.genericMethodType(count).changeReturnType(type.returnType()));
+        int[] reorder = new int[count];
+        for (int i = 0; i < count; i++) {
+            reorder[i] = i < leading ? i : offset + i;
+        }
+        return MethodHandles.permuteArguments(handle, type, reorder);
+    }
+
+    /**
+     * 只读取类上的标注, 不扫描成员
+     */
+    static List<Class<? extends Annotation>> scopesOf(Class<?> component) {
+        return stream(component.getAnnotations())
+            .<Class<? extends Annotation>>map(Annotation::annotationType)
+            .filter(a -> a.isAnnotationPresent(Scope.class))
+            .toList();
+    }
+
+    private static <T> List<Field> getInjectFields(Class<T> component) {
+        List<Field> injectFields = new ArrayList<>();
+        Class<?> current = component;
+        while (current != Object.class) {
+            injectFields.addAll(stream(current.getDeclaredFields())
+                .filter(f -> f.isAnnotationPresent(Inject.class))
+                .toList());
+            current = current.getSuperclass();
+        }
+        return injectFields;
+    }
+
+    private static <T> Constructor<T> getInjectConstructor(Class<T> implementation) {
+        List<Constructor<?>> injectConstructors = stream(implementation.getConstructors())
+            .filter(c -> c.isAnnotationPresent(Inject.class)).toList();
+        if (injectConstructors.size() > 1) {
+            throw new IllegalComponentException();
+        }
+        return (Constructor<T>) injectConstructors.stream().findFirst().orElseGet(() -> {
+            try {
+                return implementation.getDeclaredConstructor();
+            } catch (NoSuchMethodException e) {
+                throw new IllegalComponentException();
+            }
+        });
+    }
+
+    private static List<Method> getInjectMethods(Class<?> component) {
+        return getAnnotatedMethods(component, Inject.class);
+    }
+
+    /**
+     * 按父类在前的顺序返回标注了 annotation 的方法, 被子类覆盖的方法不包括在内
+     */
+    static List<Method> getAnnotatedMethods(Class<?> component, Class<? extends Annotation> annotation) {
+        List<Method> result = new ArrayList<>();
+        // 子类中已声明的方法签名, 父类中签名相同的方法已被覆盖, 无论子类是否标注
+        Set<Signature> overridden = new HashSet<>();
+        Class<?> current = component;
+        while (current != Object.class) {
+            Method[] declared = current.getDeclaredMethods();
+            for (Method method : declared) {
+                boolean isPrivate = Modifier.isPrivate(method.getModifiers());
+                if (method.isAnnotationPresent(annotation) && (isPrivate || !overridden.contains(new Signature(method)))) {
+                    result.add(method);
+                }
+            }
+            for (Method method : declared) {
+                if (!Modifier.isPrivate(method.getModifiers())) {
+                    overridden.add(new Signature(method));
+                }
+            }
+            current = current.getSuperclass();
+        }
+
+        Collections.reverse(result);
+        return result;
+    }
+
+    private record Signature(String name, List<Class<?>> parameterTypes) {
+        Signature(Method method) {
+            this(method.getName(), List.of(method.getParameterTypes()));
+        }
+    }
+}
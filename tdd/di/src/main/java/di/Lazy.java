@@ -0,0 +1,14 @@
+package di;
+
+import java.lang.annotation.*;
+
+/**
+ * 标注在注入点上, 注入一个代理, 第一次调用代理方法时才创建依赖的组件
+ * <p>
+ * 依赖的类型必须是接口
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+public @interface Lazy {
+}
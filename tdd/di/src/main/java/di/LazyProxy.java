@@ -0,0 +1,88 @@
+package di;
+
+import jakarta.inject.Provider;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link Lazy} 注入点使用的代理, 第一次调用时通过 Provider 获取组件, 之后一直使用该实例
+ * <p>
+ * equals 和 hashCode 按代理本身比较, toString 在组件创建前不会创建组件
+ */
+class LazyProxy implements InvocationHandler {
+
+    /**
+     * 接口中每个方法对应的已设置为可访问的 Method, 接口可能对 di 包不可访问, 例如其他包中包私有的接口;
+     * 每个接口只检查一次访问权限, 代理调用时直接使用
+     */
+    private static final ClassValue<Map<Method, Method>> ACCESSIBLE = new ClassValue<>() {
+        @Override
+        protected Map<Method, Method> computeValue(Class<?> component) {
+            Map<Method, Method> methods = new HashMap<>();
+            for (Method method : component.getMethods()) {
+                method.setAccessible(true);
+                methods.put(method, method);
+            }
+            return Map.copyOf(methods);
+        }
+    };
+
+    private final Class<?> component;
+
+    private final Provider<?> provider;
+
+    /**
+     * 创建组件时执行组件的整个构造过程, 不持有监视器, 避免固定虚拟线程
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile Object instance;
+
+    private LazyProxy(Class<?> component, Provider<?> provider) {
+        this.component = component;
+        this.provider = provider;
+    }
+
+    static Object create(Class<?> component, Provider<?> provider) {
+        return Proxy.newProxyInstance(component.getClassLoader(), new Class<?>[]{component}, new LazyProxy(component, provider));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> instance != null ? instance.toString() : "Lazy<" + component.getName() + ">";
+            };
+        }
+        try {
+            return ACCESSIBLE.get(component).get(method).invoke(instance(), args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Object instance() {
+        Object result = instance;
+        if (result == null) {
+            lock.lock();
+            try {
+                result = instance;
+                if (result == null) {
+                    result = provider.get();
+                    instance = result;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return result;
+    }
+}
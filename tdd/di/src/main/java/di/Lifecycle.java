@@ -0,0 +1,87 @@
+package di;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+/**
+ * 组件的生命周期回调
+ * <p>
+ * PostConstruct 方法在注入完成后调用, PreDestroy 方法在 {@link Container} 关闭时调用;
+ * 都必须是无参的实例方法, 父类中的方法先调用, 被子类覆盖的方法不调用
+ */
+final class Lifecycle {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType CALLBACK = MethodType.methodType(void.class, Object.class);
+
+    private static final ClassValue<MethodHandle> PRE_DESTROY = new ClassValue<>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> component) {
+            return compile(component, PreDestroy.class);
+        }
+    };
+
+    private Lifecycle() {
+    }
+
+    /**
+     * @return 依次调用 component 中 PostConstruct 方法的句柄, 类型为 (Object)void; 没有时为 null
+     */
+    static MethodHandle postConstruct(Class<?> component) {
+        return compile(component, PostConstruct.class);
+    }
+
+    /**
+     * 绑定组件时检查 PreDestroy 方法, 不合法时抛出 IllegalComponentException, 不等到关闭容器时才发现
+     */
+    static void checkPreDestroy(Class<?> component) {
+        PRE_DESTROY.get(component);
+    }
+
+    /**
+     * 销毁容器创建的组件实例: 有 PreDestroy 方法时只调用这些方法, 否则实现了 AutoCloseable 时调用 close
+     */
+    static void destroy(Object instance) throws Throwable {
+        MethodHandle preDestroy = PRE_DESTROY.get(instance.getClass());
+        if (preDestroy != null) {
+            preDestroy.invokeExact(instance);
+        } else if (instance instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * 组件实例在关闭时是否需要销毁
+     */
+    static boolean isDestroyable(Object instance) {
+        return PRE_DESTROY.get(instance.getClass()) != null || instance instanceof AutoCloseable;
+    }
+
+    private static MethodHandle compile(Class<?> component, Class<? extends Annotation> annotation) {
+        List<Method> methods = InjectionMetadata.getAnnotatedMethods(component, annotation);
+        MethodHandle result = null;
+        for (int i = methods.size() - 1; i >= 0; i--) {
+            Method method = methods.get(i);
+            if (method.getParameterCount() != 0 || Modifier.isStatic(method.getModifiers())) {
+                throw new IllegalComponentException();
+            }
+            try {
+                method.setAccessible(true);
+                MethodHandle callback = LOOKUP.unreflect(method).asType(CALLBACK);
+                result = result == null ? callback : MethodHandles.foldArguments(result, callback);
+            } catch (IllegalAccessException e) {
+                throw new IllegalComponentException();
+            }
+        }
+        return result;
+    }
+}
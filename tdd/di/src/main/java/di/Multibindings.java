@@ -0,0 +1,182 @@
+package di;
+
+import jakarta.inject.Qualifier;
+import jakarta.inject.Singleton;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 多重绑定, 多个组件共同组成一个 Set, List 或 Map 注入
+ * <p>
+ * 生成 Context 时展开为普通绑定: 每个元素是一个带内部 Qualifier 的组件, 集合是依赖全部元素的 Singleton 组件,
+ * 在每个 Context 中只创建一次, 之后获取集合不再复制元素
+ */
+class Multibindings {
+
+    /**
+     * 元素类型到元素的 Provider, 按注册顺序排列, 同时组成 Set 和 List
+     */
+    private final Map<Class<?>, List<ContextConfig.ComponentProvider<?>>> elements = new ConcurrentHashMap<>();
+
+    /**
+     * Map 类型到 Map 的条目, 按注册顺序排列
+     */
+    private final Map<ParameterizedType, List<Entry>> entries = new ConcurrentHashMap<>();
+
+    void add(Class<?> type, ContextConfig.ComponentProvider<?> provider) {
+        elements.compute(type, (t, providers) -> append(providers, provider));
+    }
+
+    /**
+     * 同一个 Map 中出现重复的 key 时抛出异常
+     */
+    void put(Class<?> keyType, Object key, Class<?> type, ContextConfig.ComponentProvider<?> provider) {
+        if (!keyType.isInstance(key)) {
+            throw new IllegalComponentException();
+        }
+        entries.compute(new Parameterized(Map.class, keyType, type), (t, existing) -> {
+            if (existing != null && existing.stream().anyMatch(entry -> entry.key.equals(key))) {
+                throw new IllegalComponentException();
+            }
+            return append(existing, new Entry(key, provider));
+        });
+    }
+
+    private static <T> List<T> append(List<T> list, T element) {
+        List<T> result = new ArrayList<>(list == null ? List.of() : list);
+        result.add(element);
+        return List.copyOf(result);
+    }
+
+    /**
+     * 已经直接绑定了同一个集合类型时抛出异常
+     */
+    void expand(Map<ComponentRef<?>, ContextConfig.ComponentProvider<?>> providers) {
+        elements.forEach((type, contributions) -> {
+            List<ComponentRef<?>> refs = register(providers, type, type.getName(), contributions);
+            register(providers, ComponentRef.of(new Parameterized(List.class, type), (Annotation) null),
+                new ElementsProvider(ElementsProvider.Kind.LIST, refs, null));
+            register(providers, ComponentRef.of(new Parameterized(Set.class, type), (Annotation) null),
+                new ElementsProvider(ElementsProvider.Kind.SET, refs, null));
+        });
+        entries.forEach((mapType, contributions) -> {
+            List<ComponentRef<?>> refs = register(providers, mapType.getActualTypeArguments()[1], mapType.getTypeName(),
+                contributions.stream().<ContextConfig.ComponentProvider<?>>map(entry -> entry.provider).toList());
+            List<Object> keys = contributions.stream().map(entry -> entry.key).toList();
+            register(providers, ComponentRef.of(mapType, (Annotation) null), new ElementsProvider(ElementsProvider.Kind.MAP, refs, keys));
+        });
+    }
+
+    private static List<ComponentRef<?>> register(Map<ComponentRef<?>, ContextConfig.ComponentProvider<?>> providers, Type type,
+                                                  String collection, List<ContextConfig.ComponentProvider<?>> contributions) {
+        List<ComponentRef<?>> refs = new ArrayList<>(contributions.size());
+        for (int i = 0; i < contributions.size(); i++) {
+            ComponentRef<?> ref = ComponentRef.of(type, new ElementLiteral(collection, i));
+            providers.put(ref, contributions.get(i));
+            refs.add(ref);
+        }
+        return refs;
+    }
+
+    private static void register(Map<ComponentRef<?>, ContextConfig.ComponentProvider<?>> providers, ComponentRef<?> collection,
+                                 ContextConfig.ComponentProvider<?> provider) {
+        if (providers.putIfAbsent(collection, provider) != null) {
+            throw new IllegalComponentException();
+        }
+    }
+
+    private record Entry(Object key, ContextConfig.ComponentProvider<?> provider) {
+    }
+
+    static final class ElementsProvider implements ContextConfig.ComponentProvider<Object> {
+        enum Kind {
+            LIST, SET, MAP
+        }
+
+        final Kind kind;
+
+        private final List<ComponentRef<?>> elements;
+
+        /**
+         * Map 的 key, 与 elements 一一对应, 其他集合为 null
+         */
+        final List<Object> keys;
+
+        ElementsProvider(Kind kind, List<ComponentRef<?>> elements, List<Object> keys) {
+            this.kind = kind;
+            this.elements = List.copyOf(elements);
+            this.keys = keys == null ? null : List.copyOf(keys);
+        }
+
+        @Override
+        public Object get(Object[] dependencies) {
+            return switch (kind) {
+                case LIST -> List.of(dependencies);
+                case SET -> Set.copyOf(Arrays.asList(dependencies));
+                case MAP -> {
+                    Map.Entry<?, ?>[] entries = new Map.Entry<?, ?>[dependencies.length];
+                    for (int i = 0; i < dependencies.length; i++) {
+                        entries[i] = Map.entry(keys.get(i), dependencies[i]);
+                    }
+                    yield Map.ofEntries(entries);
+                }
+            };
+        }
+
+        @Override
+        public List<ComponentRef<?>> getDependencies() {
+            return elements;
+        }
+
+        @Override
+        public Class<? extends Annotation> getScope() {
+            return Singleton.class;
+        }
+    }
+
+    /**
+     * 区分同一个集合中的元素, 只在容器内部使用
+     */
+    @Qualifier
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Element {
+        String collection();
+
+        int index();
+    }
+
+    static Element element(String collection, int index) {
+        return new ElementLiteral(collection, index);
+    }
+
+    /**
+     * equals, hashCode 和 toString 遵守 {@link Annotation} 的约定, 与反射得到的 Element 实例相等
+     */
+    private record ElementLiteral(String collection, int index) implements Element {
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Element.class;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Element element && collection.equals(element.collection()) && index == element.index();
+        }
+
+        @Override
+        public int hashCode() {
+            return ((127 * "collection".hashCode()) ^ collection.hashCode()) + ((127 * "index".hashCode()) ^ Integer.hashCode(index));
+        }
+
+        @Override
+        public String toString() {
+            return "@" + Element.class.getCanonicalName() + "(collection=\"" + collection + "\", index=" + index + ")";
+        }
+    }
+}
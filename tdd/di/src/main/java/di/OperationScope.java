@@ -0,0 +1,149 @@
+package di;
+
+import jakarta.inject.Provider;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 操作范围的 Scope, 实例保存在显式的 {@link Operation} 中, 而不是线程中
+ * <p>
+ * 线程只在 {@link Operation#run(Runnable)} 执行期间持有当前操作的引用, 执行结束后立即移除, 不会在线程上残留实例;
+ * 同一个操作可以通过 {@link Operation#wrap(Runnable)} 传递到其他线程中执行
+ * <p>
+ * 创建实例时只锁住该组件, 不持有 monitor, 虚拟线程在组件创建过程中阻塞时不会占住载体线程
+ *
+ * <pre>{@code
+ * OperationScope operations = new OperationScope();
+ * contextConfig.scope(OperationScoped.class, operations);
+ * try (OperationScope.Operation operation = operations.open()) {
+ *     operation.run(() -> context.get(Component.class));
+ * }
+ * }</pre>
+ */
+public class OperationScope implements ScopeProvider {
+
+    private final ThreadLocal<Operation> current = new ThreadLocal<>();
+
+    public Operation open() {
+        return new Operation();
+    }
+
+    @Override
+    public Provider<?> create(Provider<?> unscoped) {
+        return new OperationScopedProvider(unscoped);
+    }
+
+    private final class OperationScopedProvider implements Provider<Object> {
+        private final Provider<?> unscoped;
+
+        OperationScopedProvider(Provider<?> unscoped) {
+            this.unscoped = unscoped;
+        }
+
+        /**
+         * 不在任何操作中执行时抛出 IllegalStateException
+         */
+        @Override
+        public Object get() {
+            Operation operation = current.get();
+            if (operation == null) {
+                throw new IllegalStateException("no active operation");
+            }
+            return operation.instance(this, unscoped);
+        }
+    }
+
+    /**
+     * 一次操作, 保存该操作中创建的实例, 关闭后不能再使用
+     */
+    public final class Operation implements AutoCloseable {
+
+        /**
+         * 每个组件一个 Holder, 关闭后为 null
+         */
+        private volatile Map<Object, Holder> instances = new ConcurrentHashMap<>();
+
+        private Operation() {
+        }
+
+        /**
+         * 在当前线程中以该操作执行任务, 可以嵌套在其他操作中执行, 结束后恢复外层操作
+         */
+        public void run(Runnable task) {
+            supply(() -> {
+                task.run();
+                return null;
+            });
+        }
+
+        public <T> T supply(Supplier<T> task) {
+            Operation previous = current.get();
+            current.set(this);
+            try {
+                return task.get();
+            } finally {
+                if (previous == null) {
+                    current.remove();
+                } else {
+                    current.set(previous);
+                }
+            }
+        }
+
+        /**
+         * @return 在执行线程中以该操作执行的任务, 用于提交到其他线程
+         */
+        public Runnable wrap(Runnable task) {
+            return () -> run(task);
+        }
+
+        /**
+         * 同一个操作中并发获取同一个组件时只创建一次, 创建时可以递归获取该操作中的其他组件; 不同组件可以同时创建
+         */
+        private Object instance(Object key, Provider<?> unscoped) {
+            Map<Object, Holder> holders = instances;
+            if (holders == null) {
+                throw new IllegalStateException("operation closed");
+            }
+            Holder holder = holders.get(key);
+            if (holder == null) {
+                holder = holders.computeIfAbsent(key, k -> new Holder());
+            }
+            return holder.get(unscoped);
+        }
+
+        @Override
+        public void close() {
+            instances = null;
+        }
+    }
+
+    /**
+     * 操作中的一个组件, 第一次创建时只锁当前组件, 创建完成后读取只有一次 volatile 读
+     */
+    private static final class Holder {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private volatile Object instance;
+
+        Object get(Provider<?> unscoped) {
+            Object result = instance;
+            if (result == null) {
+                lock.lock();
+                try {
+                    result = instance;
+                    if (result == null) {
+                        result = unscoped.get();
+                        instance = result;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package di;
+
+import jakarta.inject.Scope;
+
+import java.lang.annotation.*;
+
+/**
+ * 在一次操作(例如一个请求)范围内复用实例, 需要向容器注册 {@link OperationScope}
+ */
+@Scope
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface OperationScoped {
+}
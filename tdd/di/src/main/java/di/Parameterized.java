@@ -0,0 +1,64 @@
+package di;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 运行时构造的泛型类型, 与 JDK 的实现相等且哈希值相同, 可以和反射得到的注入点类型互相查找
+ */
+final class Parameterized implements ParameterizedType {
+    private final Type ownerType;
+
+    private final Class<?> rawType;
+
+    private final Type[] arguments;
+
+    Parameterized(Class<?> rawType, Type... arguments) {
+        this(null, rawType, arguments);
+    }
+
+    Parameterized(Type ownerType, Class<?> rawType, Type[] arguments) {
+        this.ownerType = ownerType;
+        this.rawType = rawType;
+        this.arguments = arguments;
+    }
+
+    @Override
+    public Type[] getActualTypeArguments() {
+        return arguments.clone();
+    }
+
+    @Override
+    public Type getRawType() {
+        return rawType;
+    }
+
+    @Override
+    public Type getOwnerType() {
+        return ownerType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ParameterizedType that && Objects.equals(ownerType, that.getOwnerType())
+            && rawType.equals(that.getRawType()) && Arrays.equals(arguments, that.getActualTypeArguments());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(arguments) ^ Objects.hashCode(ownerType) ^ rawType.hashCode();
+    }
+
+    @Override
+    public String getTypeName() {
+        return rawType.getName() + Arrays.stream(arguments).map(Type::getTypeName).collect(Collectors.joining(", ", "<", ">"));
+    }
+
+    @Override
+    public String toString() {
+        return getTypeName();
+    }
+}
@@ -0,0 +1,223 @@
+package di;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 组件解析的统计信息, 通过 {@link ContextConfig#instrument(ResolutionMetrics)} 开启
+ * <p>
+ * 记录每个组件的获取次数、创建次数和创建耗时分布, 耗时按 2 的幂分桶, 记录时不分配对象;
+ * 从 Context 获取组件的总耗时超过阈值时, 保留这次解析的依赖树
+ * <p>
+ * 解析过程按先序记录在每个线程复用的数组中, 只有超过阈值时才生成依赖树
+ */
+public class ResolutionMetrics {
+
+    /**
+     * 第 i 个桶记录耗时在 [2^i, 2^(i+1)) 纳秒之间的次数, 第 0 个桶同时记录 0 纳秒
+     */
+    static final int BUCKETS = 64;
+
+    private static final int SLOW_RESOLUTIONS = 32;
+
+    private final long slowThreshold;
+
+    private final Map<ComponentRef<?>, ComponentStats> components = new ConcurrentHashMap<>();
+
+    private final Deque<Trace> slowResolutions = new ArrayDeque<>();
+
+    private final ThreadLocal<Resolving> resolving = ThreadLocal.withInitial(Resolving::new);
+
+    /**
+     * @param slowThreshold 总耗时达到该阈值的解析会保留依赖树, 只保留最近的 32 次
+     */
+    public ResolutionMetrics(Duration slowThreshold) {
+        this.slowThreshold = slowThreshold.toNanos();
+    }
+
+    ComponentStats stats(ComponentRef<?> component) {
+        return components.computeIfAbsent(component, c -> new ComponentStats());
+    }
+
+    void enter(ComponentRef<?> component) {
+        resolving.get().enter(component, System.nanoTime());
+    }
+
+    void exit() {
+        Resolving current = resolving.get();
+        if (current.exit(System.nanoTime()) && current.nanos(0) >= slowThreshold) {
+            Trace trace = current.trace();
+            synchronized (slowResolutions) {
+                if (slowResolutions.size() == SLOW_RESOLUTIONS) {
+                    slowResolutions.removeFirst();
+                }
+                slowResolutions.addLast(trace);
+            }
+        }
+        if (current.depth() == 0) {
+            current.clear();
+        }
+    }
+
+    public Snapshot snapshot() {
+        Map<ComponentRef<?>, ComponentSnapshot> result = new HashMap<>();
+        components.forEach((component, stats) -> result.put(component, stats.snapshot()));
+        synchronized (slowResolutions) {
+            return new Snapshot(Map.copyOf(result), List.copyOf(slowResolutions));
+        }
+    }
+
+    static final class ComponentStats {
+        private final LongAdder resolutions = new LongAdder();
+
+        private final LongAdder creations = new LongAdder();
+
+        private final AtomicLongArray latency = new AtomicLongArray(BUCKETS);
+
+        void resolved() {
+            resolutions.increment();
+        }
+
+        void created(long nanos) {
+            creations.increment();
+            latency.incrementAndGet(bucket(nanos));
+        }
+
+        ComponentSnapshot snapshot() {
+            long[] buckets = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = latency.get(i);
+            }
+            return new ComponentSnapshot(resolutions.sum(), creations.sum(), buckets);
+        }
+    }
+
+    static int bucket(long nanos) {
+        return nanos <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    /**
+     * 当前线程正在进行的一次解析, 第 i 个组件的父组件是 parents[i], 根组件的父组件为 -1;
+     * 数组只在解析的组件数超过以往时扩容
+     */
+    private static final class Resolving {
+        ComponentRef<?>[] components = new ComponentRef<?>[16];
+        long[] starts = new long[16];
+        long[] ends = new long[16];
+        int[] parents = new int[16];
+        int count;
+        int current = -1;
+        int depth;
+        int position;
+
+        void enter(ComponentRef<?> component, long start) {
+            if (count == components.length) {
+                components = Arrays.copyOf(components, count * 2);
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                parents = Arrays.copyOf(parents, count * 2);
+            }
+            components[count] = component;
+            starts[count] = start;
+            parents[count] = current;
+            current = count++;
+            depth++;
+        }
+
+        /**
+         * @return 是否结束了根组件的解析
+         */
+        boolean exit(long end) {
+            ends[current] = end;
+            current = parents[current];
+            depth--;
+            return depth == 0;
+        }
+
+        int depth() {
+            return depth;
+        }
+
+        long nanos(int index) {
+            return ends[index] - starts[index];
+        }
+
+        Trace trace() {
+            position = 0;
+            return trace(0);
+        }
+
+        /**
+         * 先序排列中子树是连续的, 处理完一个依赖后 position 指向下一个依赖
+         */
+        private Trace trace(int index) {
+            position = index + 1;
+            List<Trace> dependencies = new ArrayList<>();
+            while (position < count && parents[position] == index) {
+                dependencies.add(trace(position));
+            }
+            return new Trace(components[index], nanos(index), List.copyOf(dependencies));
+        }
+
+        void clear() {
+            Arrays.fill(components, 0, count, null);
+            count = 0;
+        }
+    }
+
+    /**
+     * @param components      每个组件的统计
+     * @param slowResolutions 超过阈值的解析, 按发生顺序排列
+     */
+    public record Snapshot(Map<ComponentRef<?>, ComponentSnapshot> components, List<Trace> slowResolutions) {
+        public ComponentSnapshot component(Class<?> component) {
+            return components.get(ComponentRef.of(component));
+        }
+
+        public ComponentSnapshot component(ComponentRef<?> component) {
+            return components.get(component);
+        }
+    }
+
+    /**
+     * @param resolutions    从 Context 获取或作为依赖注入的次数, 包括直接返回 Scope 中已有实例的情况
+     * @param creations      实际创建实例的次数
+     * @param latencyBuckets 创建耗时(不含依赖)分布, 第 i 个桶对应 [2^i, 2^(i+1)) 纳秒
+     */
+    public record ComponentSnapshot(long resolutions, long creations, long[] latencyBuckets) {
+        public ComponentSnapshot {
+            latencyBuckets = latencyBuckets.clone();
+        }
+
+        @Override
+        public long[] latencyBuckets() {
+            return latencyBuckets.clone();
+        }
+
+        /**
+         * @return 分位数所在桶的上界(纳秒), 没有记录时为 0
+         */
+        public long percentile(double percentile) {
+            long target = (long) Math.ceil(creations * percentile);
+            long count = 0;
+            for (int i = 0; i < latencyBuckets.length; i++) {
+                count += latencyBuckets[i];
+                if (count >= target && count > 0) {
+                    return i == 63 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * 一次解析的依赖树
+     *
+     * @param nanos 解析该组件的总耗时, 包括依赖
+     */
+    public record Trace(ComponentRef<?> component, long nanos, List<Trace> dependencies) {
+    }
+}
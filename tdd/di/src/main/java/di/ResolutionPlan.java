@@ -0,0 +1,489 @@
+package di;
+
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Arrays.stream;
+
+/**
+ * 冻结后的解析计划
+ * <p>
+ * 每个组件分配一个整数槽位, 槽位按拓扑顺序排列(直接注入的依赖在前), 依赖在构建时就解析为对应节点的引用,
+ * 解析组件时只需沿节点数组递归, 不再查找 map, 也不再为每条依赖边创建 Optional
+ * <p>
+ * 构建完成后不可变, 多线程读取时不需要加锁
+ * <p>
+ * 子容器的解析计划只包含子容器注册的组件, 找不到的组件沿父计划查找, 依赖父计划组件的边直接指向父计划的节点
+ */
+class ResolutionPlan implements Context {
+
+    private static final Object[] NO_DEPENDENCIES = new Object[0];
+
+    private static final MethodHandle RESOLVE;
+
+    static {
+        try {
+            RESOLVE = MethodHandles.lookup().findVirtual(Edge.class, "resolve", MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Map<ComponentRef<?>, Node> index;
+
+    /**
+     * 没有 Qualifier 也没有泛型参数的组件, 按类查找时不需要创建 ComponentRef
+     */
+    private final Map<Class<?>, Node> classes;
+
+    private final Node[] nodes;
+
+    /**
+     * 包含从父计划继承的 Scope
+     */
+    final Map<Class<? extends Annotation>, ScopeProvider> scopes;
+
+    private final ResolutionPlan parent;
+
+    private ResolutionPlan(Map<ComponentRef<?>, Node> index, Map<Class<?>, Node> classes, Node[] nodes,
+                           Map<Class<? extends Annotation>, ScopeProvider> scopes, ResolutionPlan parent) {
+        this.index = index;
+        this.classes = classes;
+        this.nodes = nodes;
+        this.scopes = scopes;
+        this.parent = parent;
+    }
+
+    /**
+     * @param order   按拓扑顺序排列的组件, 由依赖检查得到
+     * @param metrics 为 null 时不做统计
+     * @param parent  没有父计划时为 null
+     */
+    static ResolutionPlan compile(Map<ComponentRef<?>, ContextConfig.ComponentProvider<?>> providers, List<ComponentRef<?>> order,
+                                  Map<Class<? extends Annotation>, ScopeProvider> scopes, ResolutionMetrics metrics,
+                                  ResolutionPlan parent) {
+        Map<ComponentRef<?>, Node> index = new HashMap<>(order.size() * 2);
+        Map<Class<?>, Node> classes = new HashMap<>(order.size() * 2);
+        Node[] nodes = new Node[order.size()];
+        for (int slot = 0; slot < nodes.length; slot++) {
+            ComponentRef<?> component = order.get(slot);
+            ContextConfig.ComponentProvider<?> provider = providers.get(component);
+            Class<? extends Annotation> scope = provider.getScope();
+            if (scope != null && !scopes.containsKey(scope)) {
+                throw new IllegalComponentException();
+            }
+            nodes[slot] = provider instanceof ContextConfig.AsyncProvider<?> async
+                ? new AsyncNode(slot, component, async, metrics)
+                : new Node(slot, component, provider, scope == null ? null : scopes.get(scope), metrics);
+            index.put(component, nodes[slot]);
+            if (component.getQualifier() == null && component.getType() instanceof Class<?> type) {
+                classes.put(type, nodes[slot]);
+            }
+        }
+        // 通过 Provider 注入的依赖可以构成环, 所有节点创建之后再连接依赖
+        for (Node node : nodes) {
+            List<ComponentRef<?>> dependencies = node.provider.getDependencies();
+            for (int i = 0; i < node.dependencies.length; i++) {
+                ComponentRef<?> key = dependencies.get(i).key();
+                Node dependency = index.get(key);
+                node.dependencies[i] = edge(dependencies.get(i), dependency != null ? dependency : parent.node(key));
+            }
+            node.link();
+        }
+        return new ResolutionPlan(Map.copyOf(index), Map.copyOf(classes), nodes, scopes, parent);
+    }
+
+    private static Edge edge(ComponentRef<?> ref, Node node) {
+        if (ref.isProvider()) {
+            return () -> node;
+        }
+        if (ref.isLazy()) {
+            return () -> LazyProxy.create(ref.getComponent(), node);
+        }
+        return node;
+    }
+
+    @Override
+    public <T> Optional<T> get(Class<T> componentClass) {
+        Node node = node(componentClass);
+        return node == null ? Optional.empty() : Optional.of((T) node.get());
+    }
+
+    @Override
+    public <T> Optional<T> get(ComponentRef<T> ref) {
+        Node node = node(ref.key());
+        return node == null ? Optional.empty() : Optional.of((T) node.get());
+    }
+
+    @Override
+    public <T> T getInstance(Class<T> componentClass) {
+        Node node = node(componentClass);
+        if (node == null) {
+            throw new NoSuchElementException("component not found: " + componentClass.getName());
+        }
+        return (T) node.get();
+    }
+
+    @Override
+    public <T> T getInstance(ComponentRef<T> ref) {
+        Node node = node(ref.key());
+        if (node == null) {
+            throw new NoSuchElementException("component not found: " + ref);
+        }
+        return (T) node.get();
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getAsync(Class<T> componentClass, Executor executor) {
+        return getAsync(node(componentClass), componentClass, executor);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getAsync(ComponentRef<T> ref, Executor executor) {
+        return getAsync(node(ref.key()), ref, executor);
+    }
+
+    private <T> CompletableFuture<T> getAsync(Node node, Object component, Executor executor) {
+        if (node == null) {
+            return CompletableFuture.failedFuture(new NoSuchElementException("component not found: " + component));
+        }
+        return (CompletableFuture<T>) async(node, executor, new IdentityHashMap<>(), true);
+    }
+
+    /**
+     * 组件的直接依赖都完成后才处理该组件: 有 Scope 的组件在 executor 中创建, 之后从 Scope 中直接获取;
+     * 异步注册的组件等待其 future 完成, 不占用线程; 没有 Scope 的组件每次注入都创建新实例, 由依赖它的组件创建
+     * <p>
+     * 提前创建没有 Scope 的依赖需要把实例传给依赖它的组件, 而实例化句柄已经绑定了依赖边, 因此这类依赖在依赖它的组件内部同步创建
+     *
+     * @param futures 本次获取中已经处理过的组件, 每个组件只处理一次
+     */
+    private static CompletableFuture<Object> async(Node node, Executor executor, Map<Node, CompletableFuture<Object>> futures, boolean root) {
+        CompletableFuture<Object> existing = futures.get(node);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<?>[] dependencies = stream(node.dependencies)
+            .filter(edge -> edge instanceof Node)
+            .map(edge -> async((Node) edge, executor, futures, false))
+            .toArray(CompletableFuture<?>[]::new);
+        CompletableFuture<Void> ready = CompletableFuture.allOf(dependencies);
+        CompletableFuture<Object> result;
+        if (node instanceof AsyncNode async) {
+            result = ready.thenCompose(ignored -> async.start());
+        } else if (root || node.scoped != null) {
+            result = ready.thenApplyAsync(ignored -> node.get(), executor);
+        } else {
+            result = ready.thenApply(ignored -> null);
+        }
+        futures.put(node, result);
+        return result;
+    }
+
+    /**
+     * 先在当前计划中查找, 找不到时沿父计划查找
+     */
+    Node node(ComponentRef<?> key) {
+        for (ResolutionPlan plan = this; plan != null; plan = plan.parent) {
+            Node node = plan.index.get(key);
+            if (node != null) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private Node node(Class<?> component) {
+        for (ResolutionPlan plan = this; plan != null; plan = plan.parent) {
+            Node node = plan.classes.get(component);
+            if (node != null) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按拓扑顺序为每个组件建立一个 future, 组件的直接依赖都完成后才开始创建, 互不依赖的组件并行创建
+     * <p>
+     * 只预热当前计划中的组件, 父计划中的依赖在创建时按需获取
+     */
+    void warmUp(Executor executor) {
+        CompletableFuture<?>[] ready = new CompletableFuture<?>[nodes.length];
+        Map<ComponentRef<?>, Throwable> failures = new ConcurrentHashMap<>();
+        for (Node node : nodes) {
+            CompletableFuture<?>[] dependencies = stream(node.dependencies)
+                .filter(edge -> edge instanceof Node dependency && contains(dependency))
+                .map(edge -> ready[((Node) edge).slot])
+                .toArray(CompletableFuture<?>[]::new);
+            CompletableFuture<Void> created = CompletableFuture.allOf(dependencies);
+            if (node.provider.getScope() == Singleton.class) {
+                created = created.thenRunAsync(() -> {
+                    try {
+                        node.get();
+                    } catch (RuntimeException | Error e) {
+                        failures.put(node.component, e);
+                        throw e;
+                    }
+                }, executor);
+            }
+            ready[node.slot] = created;
+        }
+        for (CompletableFuture<?> future : ready) {
+            future.handle((result, e) -> null).join();
+        }
+        rethrow(failures);
+    }
+
+    /**
+     * 按依赖的逆序销毁当前计划中已创建的 Singleton: 依赖它的组件都销毁之后才开始销毁, 互不依赖的组件在 executor 中并行销毁
+     * <p>
+     * 只按直接注入的依赖排序, 通过 Provider 或 Lazy 注入的依赖可以构成环, 不参与排序; 父计划中的组件由父容器销毁。
+     * 某个组件销毁失败不影响其他组件, 失败记录在 failures 中
+     *
+     * @return 需要销毁的组件各自对应的 future, 依赖它的组件的 future 被取消时不再销毁
+     */
+    Map<ComponentRef<?>, CompletableFuture<Void>> destroy(Executor executor, Map<ComponentRef<?>, Throwable> failures) {
+        List<List<Node>> dependents = new ArrayList<>(nodes.length);
+        for (Node node : nodes) {
+            dependents.add(new ArrayList<>());
+        }
+        for (Node node : nodes) {
+            for (Edge edge : node.dependencies) {
+                if (edge instanceof Node dependency && contains(dependency)) {
+                    dependents.get(dependency.slot).add(node);
+                }
+            }
+        }
+        CompletableFuture<?>[] destroyed = new CompletableFuture<?>[nodes.length];
+        Map<ComponentRef<?>, CompletableFuture<Void>> result = new LinkedHashMap<>();
+        // 依赖它的组件槽位更大, 逆序遍历时已经处理过
+        for (int slot = nodes.length - 1; slot >= 0; slot--) {
+            Node node = nodes[slot];
+            CompletableFuture<Void> ready = CompletableFuture.allOf(dependents.get(slot).stream()
+                .map(dependent -> destroyed[dependent.slot])
+                .toArray(CompletableFuture<?>[]::new));
+            Object instance = node.created();
+            if (instance != null && isDestroyable(node, instance, failures)) {
+                ready = ready.thenRunAsync(() -> {
+                    try {
+                        Lifecycle.destroy(instance);
+                    } catch (Throwable e) {
+                        failures.put(node.component, e);
+                    }
+                }, executor);
+                result.put(node.component, ready);
+            }
+            destroyed[slot] = ready;
+        }
+        return result;
+    }
+
+    /**
+     * 工厂或实例绑定创建的对象可能是绑定类型的子类, PreDestroy 方法不合法时记录失败, 不影响其他组件
+     */
+    private static boolean isDestroyable(Node node, Object instance, Map<ComponentRef<?>, Throwable> failures) {
+        try {
+            return Lifecycle.isDestroyable(instance);
+        } catch (IllegalComponentException e) {
+            failures.put(node.component, e);
+            return false;
+        }
+    }
+
+    private boolean contains(Node node) {
+        return node.slot < nodes.length && nodes[node.slot] == node;
+    }
+
+    /**
+     * 按组件排序后抛出第一个异常, 其余异常作为 suppressed; 受检异常包装为 RuntimeException
+     */
+    static void rethrow(Map<ComponentRef<?>, Throwable> failures) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        List<Throwable> sorted = failures.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey(Comparator.comparing(ComponentRef::toString)))
+            .map(Map.Entry::getValue)
+            .toList();
+        Throwable first = sorted.get(0);
+        sorted.stream().skip(1).forEach(first::addSuppressed);
+        if (first instanceof Error error) {
+            throw error;
+        }
+        if (first instanceof RuntimeException exception) {
+            throw exception;
+        }
+        throw new RuntimeException(first);
+    }
+
+    /**
+     * 依赖边, 决定注入到组件中的对象
+     */
+    interface Edge {
+        Object resolve();
+    }
+
+    static class Node implements Edge, Provider<Object> {
+        /**
+         * 拓扑序中的槽位
+         */
+        final int slot;
+
+        final ComponentRef<?> component;
+
+        final ContextConfig.ComponentProvider<?> provider;
+
+        final Edge[] dependencies;
+
+        /**
+         * 由 Scope 决定实例复用范围的 Provider, 没有 Scope 时为 null
+         */
+        private final Provider<?> scoped;
+
+        /**
+         * 未开启统计时为 null
+         */
+        private final ResolutionMetrics metrics;
+
+        private final ResolutionMetrics.ComponentStats stats;
+
+        /**
+         * 绑定了全部依赖边的实例化句柄, 类型为 ()Object, 创建时不分配参数数组; provider 不支持时为 null
+         * <p>
+         * 在解析计划构建完成前设置, 随解析计划的 final 字段一起发布
+         */
+        private MethodHandle creator;
+
+        Node(int slot, ComponentRef<?> component, ContextConfig.ComponentProvider<?> provider, ScopeProvider scope, ResolutionMetrics metrics) {
+            this.slot = slot;
+            this.component = component;
+            this.provider = provider;
+            this.dependencies = new Edge[provider.getDependencies().size()];
+            this.scoped = scope == null ? null : scope.create(this::create);
+            this.metrics = metrics;
+            this.stats = metrics == null ? null : metrics.stats(component);
+        }
+
+        /**
+         * 依赖边连接完成后调用, 把每条边的 resolve 依次收集到实例化句柄的参数位置上
+         */
+        void link() {
+            MethodHandle instantiator = provider.getInstantiator();
+            if (instantiator == null) {
+                return;
+            }
+            // 最后收集的参数最先执行, 从后向前收集才能按声明顺序解析依赖
+            for (int i = dependencies.length - 1; i >= 0; i--) {
+                instantiator = MethodHandles.collectArguments(instantiator, i, RESOLVE.bindTo(dependencies[i]));
+            }
+            creator = instantiator;
+        }
+
+        @Override
+        public Object get() {
+            if (stats == null) {
+                return scoped == null ? create() : scoped.get();
+            }
+            stats.resolved();
+            metrics.enter(component);
+            try {
+                return scoped == null ? create() : scoped.get();
+            } finally {
+                metrics.exit();
+            }
+        }
+
+        /**
+         * 不考虑 Scope, 创建新的组件实例
+         */
+        Object create() {
+            if (creator != null && stats == null) {
+                try {
+                    return (Object) creator.invokeExact();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            Object[] instances = NO_DEPENDENCIES;
+            if (dependencies.length > 0) {
+                instances = new Object[dependencies.length];
+                for (int i = 0; i < dependencies.length; i++) {
+                    instances[i] = dependencies[i].resolve();
+                }
+            }
+            if (stats == null) {
+                return provider.get(instances);
+            }
+            long start = System.nanoTime();
+            Object instance = provider.get(instances);
+            stats.created(System.nanoTime() - start);
+            return instance;
+        }
+
+        /**
+         * @return 已创建的 Singleton 实例, 尚未创建或不是 Singleton 时为 null
+         */
+        Object created() {
+            return scoped instanceof SingletonProvider<?> singleton ? singleton.created() : null;
+        }
+
+        @Override
+        public Object resolve() {
+            return get();
+        }
+    }
+
+    /**
+     * 异步注册的组件, 在每个 Context 中只开始一次创建, 之后一直使用同一个 future
+     */
+    static final class AsyncNode extends Node {
+        private final ContextConfig.AsyncProvider<?> async;
+
+        /**
+         * factory 中可能执行任意代码, 不持有监视器, 避免固定虚拟线程
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private volatile CompletableFuture<Object> started;
+
+        AsyncNode(int slot, ComponentRef<?> component, ContextConfig.AsyncProvider<?> async, ResolutionMetrics metrics) {
+            super(slot, component, async, null, metrics);
+            this.async = async;
+        }
+
+        @Override
+        Object create() {
+            return ContextConfig.AsyncProvider.join(start());
+        }
+
+        CompletableFuture<Object> start() {
+            CompletableFuture<Object> result = started;
+            if (result == null) {
+                lock.lock();
+                try {
+                    result = started;
+                    if (result == null) {
+                        result = async.start();
+                        started = result;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return result;
+        }
+    }
+}
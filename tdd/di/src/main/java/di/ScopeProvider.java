@@ -0,0 +1,14 @@
+package di;
+
+import jakarta.inject.Provider;
+
+/**
+ * 自定义 Scope 的回调
+ */
+public interface ScopeProvider {
+    /**
+     * @param unscoped 每次调用都会创建新的组件实例
+     * @return 在该 Scope 范围内复用实例的 Provider
+     */
+    Provider<?> create(Provider<?> unscoped);
+}
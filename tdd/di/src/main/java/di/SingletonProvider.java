@@ -0,0 +1,49 @@
+package di;
+
+import jakarta.inject.Provider;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Singleton 生命周期
+ * <p>
+ * 第一次创建时只锁当前组件, 创建完成后读取只有一次 volatile 读, 不加锁;
+ * 创建时执行组件的整个构造过程, 使用 ReentrantLock 而不是监视器, 避免固定虚拟线程
+ */
+class SingletonProvider<T> implements Provider<T> {
+
+    private final Provider<T> unscoped;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile T instance;
+
+    SingletonProvider(Provider<T> unscoped) {
+        this.unscoped = unscoped;
+    }
+
+    @Override
+    public T get() {
+        T result = instance;
+        if (result == null) {
+            lock.lock();
+            try {
+                result = instance;
+                if (result == null) {
+                    result = unscoped.get();
+                    instance = result;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return 已创建的实例, 尚未创建时为 null, 不会触发创建
+     */
+    T created() {
+        return instance;
+    }
+}
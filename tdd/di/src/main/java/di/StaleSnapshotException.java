@@ -0,0 +1,14 @@
+package di;
+
+/**
+ * 快照与当前的类或注册不一致
+ */
+public class StaleSnapshotException extends RuntimeException {
+    public StaleSnapshotException(String message) {
+        super(message);
+    }
+
+    public StaleSnapshotException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,344 @@
+package di.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * 编译期为声明了 Inject 成员的组件生成 {@link di.ComponentFactory}, 并把这些组件的类名写入组件扫描使用的索引
+ * <p>
+ * 生成规则与 {@link di.ConstructorInjectProvider} 的反射规则一致, 无法通过生成代码访问的组件(private 成员,
+ * 非静态内部类, 抽象类等), 包含 Provider, Lazy, Qualifier 或泛型注入点的组件, 以及声明了 PostConstruct 方法的组件不生成工厂,
+ * 运行时回退到反射注入
+ */
+@SupportedAnnotationTypes(InjectFactoryProcessor.INJECT)
+public class InjectFactoryProcessor extends AbstractProcessor {
+
+    static final String INJECT = "jakarta.inject.Inject";
+
+    static final String SUFFIX = "_Factory";
+
+    static final String PROVIDER = "jakarta.inject.Provider";
+
+    static final String LAZY = "di.Lazy";
+
+    static final String QUALIFIER = "jakarta.inject.Qualifier";
+
+    static final String POST_CONSTRUCT = "jakarta.annotation.PostConstruct";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * 与 di.ComponentScanner 读取的索引路径一致
+     */
+    static final String INDEX = "META-INF/di/components";
+
+    /**
+     * 所有轮次中声明了 Inject 成员的类, 最后一轮写入索引
+     */
+    private final Set<String> indexed = new TreeSet<>();
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+        TypeElement inject = processingEnv.getElementUtils().getTypeElement(INJECT);
+        if (inject == null) {
+            return false;
+        }
+        Set<TypeElement> components = new LinkedHashSet<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(inject)) {
+            if (element.getEnclosingElement() instanceof TypeElement component && component.getKind() == ElementKind.CLASS) {
+                components.add(component);
+            }
+        }
+        for (TypeElement component : components) {
+            indexed.add(processingEnv.getElementUtils().getBinaryName(component).toString());
+            generate(component).ifPresent(source -> write(component, source));
+        }
+        return false;
+    }
+
+    /**
+     * 组件扫描时优先读取索引, 不需要逐个读取 class 文件
+     */
+    private void writeIndex() {
+        if (indexed.isEmpty()) {
+            return;
+        }
+        try (Writer writer = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX).openWriter()) {
+            for (String component : indexed) {
+                writer.write(component);
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Optional<String> generate(TypeElement component) {
+        if (!isInstantiable(component) || hasPostConstruct(component)) {
+            return Optional.empty();
+        }
+        String packageName = processingEnv.getElementUtils().getPackageOf(component).getQualifiedName().toString();
+        Optional<ExecutableElement> constructor = getInjectConstructor(component);
+        if (constructor.isEmpty()) {
+            return Optional.empty();
+        }
+        List<VariableElement> fields = getInjectFields(component);
+        List<ExecutableElement> methods = getInjectMethods(component);
+        for (VariableElement field : fields) {
+            if (!isAccessible(field, packageName) || field.getModifiers().contains(Modifier.STATIC) || field.getModifiers().contains(Modifier.FINAL)
+                || !isAccessible(field.asType(), packageName) || !isDirect(field)) {
+                return Optional.empty();
+            }
+        }
+        List<ExecutableElement> executables = new ArrayList<>(methods);
+        executables.add(constructor.get());
+        for (ExecutableElement executable : executables) {
+            if (!isAccessible(executable, packageName) || executable.getModifiers().contains(Modifier.STATIC)
+                || !executable.getTypeParameters().isEmpty()
+                || executable.getParameters().stream().anyMatch(p -> !isAccessible(p.asType(), packageName) || !isDirect(p))) {
+                return Optional.empty();
+            }
+        }
+
+        String componentType = erasure(component.asType());
+        List<String> dependencies = new ArrayList<>();
+        StringBuilder body = new StringBuilder();
+        body.append("        ").append(componentType).append(" instance = new ").append(componentType)
+            .append("(").append(arguments(constructor.get().getParameters(), dependencies)).append(");\n");
+        for (VariableElement field : fields) {
+            body.append("        ((").append(erasure(field.getEnclosingElement().asType())).append(") instance).")
+                .append(field.getSimpleName()).append(" = ").append(argument(field.asType(), dependencies)).append(";\n");
+        }
+        for (ExecutableElement method : methods) {
+            body.append("        ((").append(erasure(method.getEnclosingElement().asType())).append(") instance).")
+                .append(method.getSimpleName()).append("(").append(arguments(method.getParameters(), dependencies)).append(");\n");
+        }
+        body.append("        return instance;\n");
+
+        boolean throwsChecked = executables.stream().anyMatch(m -> !m.getThrownTypes().isEmpty());
+        String create = throwsChecked
+            ? "        try {\n" + body.toString().indent(4) + "        } catch (RuntimeException e) {\n"
+            + "            throw e;\n"
+            + "        } catch (Exception e) {\n"
+            + "            throw new RuntimeException(e);\n"
+            + "        }\n"
+            : body.toString();
+
+        String source = (packageName.isEmpty() ? "" : "package " + packageName + ";\n\n")
+            + "@javax.annotation.processing.Generated(\"" + InjectFactoryProcessor.class.getName() + "\")\n"
+            + "@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n"
+            + "public final class " + factoryName(component) + " implements di.ComponentFactory<" + componentType + "> {\n\n"
+            + "    private static final java.util.List<Class<?>> DEPENDENCIES = java.util.List.of("
+            + String.join(", ", dependencies.stream().map(d -> d + ".class").toList()) + ");\n\n"
+            + "    @Override\n"
+            + "    public " + componentType + " create(Object[] dependencies) {\n"
+            + create
+            + "    }\n\n"
+            + "    @Override\n"
+            + "    public java.util.List<Class<?>> getDependencies() {\n"
+            + "        return DEPENDENCIES;\n"
+            + "    }\n"
+            + "}\n";
+        return Optional.of(source);
+    }
+
+    private String arguments(List<? extends VariableElement> parameters, List<String> dependencies) {
+        return String.join(", ", parameters.stream().map(p -> argument(p.asType(), dependencies)).toList());
+    }
+
+    private String argument(TypeMirror type, List<String> dependencies) {
+        String name = erasure(type);
+        dependencies.add(name);
+        return "(" + name + ") dependencies[" + (dependencies.size() - 1) + "]";
+    }
+
+    private void write(TypeElement component, String source) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(component).getQualifiedName().toString();
+        String name = (packageName.isEmpty() ? "" : packageName + ".") + factoryName(component);
+        try (Writer writer = processingEnv.getFiler().createSourceFile(name, component).openWriter()) {
+            writer.write(source);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 与 di.GeneratedFactories 的命名规则一致
+     */
+    private String factoryName(TypeElement component) {
+        String binaryName = processingEnv.getElementUtils().getBinaryName(component).toString();
+        String packageName = processingEnv.getElementUtils().getPackageOf(component).getQualifiedName().toString();
+        String simpleName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        return simpleName.replace('$', '_') + SUFFIX;
+    }
+
+    /**
+     * 抽象类, 局部类, 匿名类以及非静态内部类无法在工厂中直接 new 出来
+     */
+    private boolean isInstantiable(TypeElement component) {
+        if (component.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        if (component.getNestingKind() == NestingKind.MEMBER && !component.getModifiers().contains(Modifier.STATIC)
+            && component.getEnclosingElement().getKind() == ElementKind.CLASS) {
+            return false;
+        }
+        Element current = component;
+        while (current instanceof TypeElement type) {
+            if (type.getModifiers().contains(Modifier.PRIVATE)
+                || type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+                return false;
+            }
+            current = type.getEnclosingElement();
+        }
+        return true;
+    }
+
+    /**
+     * PostConstruct 方法融合在反射注入的句柄中调用
+     */
+    private boolean hasPostConstruct(TypeElement component) {
+        return hierarchy(component).stream()
+            .flatMap(type -> ElementFilter.methodsIn(type.getEnclosedElements()).stream())
+            .anyMatch(method -> isAnnotated(method, POST_CONSTRUCT));
+    }
+
+    private boolean isAccessible(Element member, String packageName) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        String memberPackage = processingEnv.getElementUtils().getPackageOf(member).getQualifiedName().toString();
+        return memberPackage.equals(packageName);
+    }
+
+    /**
+     * 生成的工厂与组件在同一个包中, 类型本身及外层类型都需要在该包中可见
+     */
+    private boolean isAccessible(TypeMirror type, String packageName) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return isAccessible(((ArrayType) type).getComponentType(), packageName);
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return type.getKind().isPrimitive() || type.getKind() == TypeKind.TYPEVAR;
+        }
+        Element current = ((DeclaredType) type).asElement();
+        while (current instanceof TypeElement) {
+            if (!isAccessible(current, packageName)) {
+                return false;
+            }
+            current = current.getEnclosingElement();
+        }
+        return true;
+    }
+
+    /**
+     * 与反射规则一致: 只考虑 public 的 Inject 构造函数, 没有时使用无参构造函数
+     */
+    private Optional<ExecutableElement> getInjectConstructor(TypeElement component) {
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(component.getEnclosedElements());
+        List<ExecutableElement> injectConstructors = constructors.stream()
+            .filter(c -> c.getModifiers().contains(Modifier.PUBLIC) && isInject(c))
+            .toList();
+        if (injectConstructors.size() > 1) {
+            return Optional.empty();
+        }
+        if (injectConstructors.size() == 1) {
+            return Optional.of(injectConstructors.get(0));
+        }
+        return constructors.stream().filter(c -> c.getParameters().isEmpty()).findFirst();
+    }
+
+    private List<VariableElement> getInjectFields(TypeElement component) {
+        List<VariableElement> result = new ArrayList<>();
+        for (TypeElement current : hierarchy(component)) {
+            ElementFilter.fieldsIn(current.getEnclosedElements()).stream()
+                .filter(this::isInject)
+                .forEach(result::add);
+        }
+        return result;
+    }
+
+    private List<ExecutableElement> getInjectMethods(TypeElement component) {
+        List<ExecutableElement> result = new ArrayList<>();
+        Set<String> overridden = new HashSet<>();
+        for (TypeElement current : hierarchy(component)) {
+            List<ExecutableElement> declared = ElementFilter.methodsIn(current.getEnclosedElements());
+            for (ExecutableElement method : declared) {
+                if (isInject(method) && (method.getModifiers().contains(Modifier.PRIVATE) || !overridden.contains(signature(method)))) {
+                    result.add(method);
+                }
+            }
+            for (ExecutableElement method : declared) {
+                if (!method.getModifiers().contains(Modifier.PRIVATE)) {
+                    overridden.add(signature(method));
+                }
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * 从组件自身开始, 到 Object 之前的所有类
+     */
+    private List<TypeElement> hierarchy(TypeElement component) {
+        List<TypeElement> result = new ArrayList<>();
+        TypeElement current = component;
+        while (current != null && !current.getQualifiedName().contentEquals(Object.class.getName())) {
+            result.add(current);
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return result;
+    }
+
+    private String signature(ExecutableElement method) {
+        return method.getSimpleName() + method.getParameters().stream().map(p -> erasure(p.asType())).toList().toString();
+    }
+
+    /**
+     * 工厂的依赖只记录类, 只支持按类直接注入实例, Provider, Lazy, Qualifier 和带泛型参数的注入点由反射处理
+     */
+    private boolean isDirect(VariableElement injectionPoint) {
+        TypeMirror type = injectionPoint.asType();
+        return !erasure(type).equals(PROVIDER) && !isAnnotated(injectionPoint, LAZY)
+            && !(type.getKind() == TypeKind.DECLARED && !((DeclaredType) type).getTypeArguments().isEmpty())
+            && injectionPoint.getAnnotationMirrors().stream().noneMatch(a -> isAnnotated(a.getAnnotationType().asElement(), QUALIFIER));
+    }
+
+    private boolean isInject(Element element) {
+        return isAnnotated(element, INJECT);
+    }
+
+    private boolean isAnnotated(Element element, String annotation) {
+        return element.getAnnotationMirrors().stream()
+            .anyMatch(a -> ((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation));
+    }
+
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+}
@@ -1,14 +1,43 @@
 package di;
 
+import di.lazy.LazyComponents;
+import di.scan.ScannedComponents;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Provider;
+import jakarta.inject.Scope;
+import jakarta.inject.Singleton;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
-import java.util.Optional;
-import java.util.Set;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 public class ContainerTest {
 
@@ -33,6 +62,37 @@ public class ContainerTest {
                 assertSame(instance, contextConfig.getContext().get(Component.class).get());
             }
 
+            @Test
+            public void should_bind_components_from_multiple_threads() throws Exception {
+                List<Class<? extends Component>> types = List.of(Component1.class, Component2.class, Component3.class, Component4.class);
+                ExecutorService executor = Executors.newFixedThreadPool(types.size());
+                try {
+                    List<Future<?>> futures = new ArrayList<>();
+                    for (Class<? extends Component> type : types) {
+                        futures.add(executor.submit(() -> contextConfig.bind((Class<Component>) type, ComponentWithDefaultConstructorImplementation.class)));
+                    }
+                    for (Future<?> future : futures) {
+                        future.get();
+                    }
+                } finally {
+                    executor.shutdownNow();
+                }
+                Context context = contextConfig.getContext();
+                types.forEach(type -> assertTrue(context.get(type).isPresent()));
+            }
+
+            interface Component1 extends Component {
+            }
+
+            interface Component2 extends Component {
+            }
+
+            interface Component3 extends Component {
+            }
+
+            interface Component4 extends Component {
+            }
+
             // TODO: abstract class
             // TODO: interface
 
@@ -136,6 +196,23 @@ public class ContainerTest {
                     contextConfig.bind(AnotherDependency.class, AnotherDependencyDependOnComponent.class);
                     assertThrows(CycleDependenciesFoundException.class, () -> contextConfig.getContext().get(Component.class));
                 }
+
+                @Test
+                public void should_report_full_path_of_transitive_cycle_dependencies() {
+                    contextConfig.bind(Component.class, ComponentWithInjectConstructorImplementation.class);
+                    contextConfig.bind(Dependency.class, DependencyDependOnAnotherDependency.class);
+                    contextConfig.bind(AnotherDependency.class, AnotherDependencyDependOnComponent.class);
+                    CycleDependenciesFoundException exception = assertThrows(CycleDependenciesFoundException.class, () -> contextConfig.getContext());
+
+                    List<Class<?>> path = exception.getPath();
+                    assertEquals(4, path.size());
+                    assertSame(path.get(0), path.get(3));
+                    List<Class<?>> cycle = List.of(Component.class, Dependency.class, AnotherDependency.class);
+                    int start = cycle.indexOf(path.get(0));
+                    for (int i = 0; i < 3; i++) {
+                        assertEquals(cycle.get((start + i) % 3), path.get(i));
+                    }
+                }
             }
 
             @Nested
@@ -177,7 +254,7 @@ public class ContainerTest {
                 @Test
                 public void should_include_field_dependency_in_dependencies() {
                     ConstructorInjectProvider<ComponentWithFiledInjection> provider = new ConstructorInjectProvider<>(ComponentWithFiledInjection.class);
-                    assertArrayEquals(new Class<?>[]{Dependency.class}, provider.getDependencies().toArray(Class<?>[]::new));
+                    assertArrayEquals(new ComponentRef<?>[]{ComponentRef.of(Dependency.class)}, provider.getDependencies().toArray(ComponentRef<?>[]::new));
                 }
             }
 
@@ -276,13 +353,68 @@ public class ContainerTest {
                     assertEquals(0, component.get().superCalled);
                 }
 
+                static class SubclassOfSubclassOverrideSuperClassWithNoInject extends SubclassOverrideSuperClassWithNoInject {
+                }
+
+                @Test
+                public void should_not_call_inject_method_if_override_with_no_inject_in_intermediate_class() {
+                    contextConfig.bind(SubclassOfSubclassOverrideSuperClassWithNoInject.class, SubclassOfSubclassOverrideSuperClassWithNoInject.class);
+                    SubclassOfSubclassOverrideSuperClassWithNoInject component = contextConfig.getContext().get(SubclassOfSubclassOverrideSuperClassWithNoInject.class).get();
+                    assertEquals(0, component.superCalled);
+                }
+
+                @Test
+                public void should_scan_injection_metadata_once_per_class() {
+                    assertSame(InjectionMetadata.of(SubclassWithInjectMethod.class), InjectionMetadata.of(SubclassWithInjectMethod.class));
+                    ConstructorInjectProvider<InjectMethodWithDependency> first = new ConstructorInjectProvider<>(InjectMethodWithDependency.class);
+                    ConstructorInjectProvider<InjectMethodWithDependency> second = new ConstructorInjectProvider<>(InjectMethodWithDependency.class);
+                    assertSame(first.getDependencies(), second.getDependencies());
+                }
+
+                static class ComponentWithAllKindsOfInjection {
+                    final Dependency constructorDependency;
+
+                    @Inject
+                    String fieldDependency;
+
+                    AnotherDependency methodDependency;
+
+                    @Inject
+                    public ComponentWithAllKindsOfInjection(Dependency dependency) {
+                        this.constructorDependency = dependency;
+                    }
+
+                    @Inject
+                    String install(AnotherDependency anotherDependency) {
+                        this.methodDependency = anotherDependency;
+                        return "ignored";
+                    }
+                }
+
+                @Test
+                public void should_inject_constructor_field_and_method_dependencies_together() {
+                    Dependency dependency = new Dependency() {
+                    };
+                    AnotherDependency anotherDependency = new AnotherDependency() {
+                    };
+                    contextConfig.bind(Dependency.class, dependency);
+                    contextConfig.bind(AnotherDependency.class, anotherDependency);
+                    contextConfig.bind(String.class, "field dependency");
+                    contextConfig.bind(ComponentWithAllKindsOfInjection.class, ComponentWithAllKindsOfInjection.class);
+
+                    ComponentWithAllKindsOfInjection component = contextConfig.getContext().get(ComponentWithAllKindsOfInjection.class).get();
+                    assertSame(dependency, component.constructorDependency);
+                    assertEquals("field dependency", component.fieldDependency);
+                    assertSame(anotherDependency, component.methodDependency);
+                }
+
                 // TODO throw exception if type parameter defined
 
                 // TODO include dependencies from inject methods
                 @Test
                 public void should_include_dependencies_from_inject_method() {
                     ConstructorInjectProvider<InjectMethodWithDependency> provider = new ConstructorInjectProvider<>(InjectMethodWithDependency.class);
-                    assertArrayEquals(new Class<?>[]{Dependency.class}, provider.getDependencies().toArray(Class[]::new));
+                    assertArrayEquals(new ComponentRef<?>[]{ComponentRef.of(Dependency.class)}, provider.getDependencies().toArray(ComponentRef[]::new));
                 }
             }
 
@@ -292,8 +424,1841 @@ public class ContainerTest {
     }
 
     @Nested
-    public class LifecycleManagement {
+    public class ProviderInjection {
+        static class ProviderInjectConstructor {
+            final Provider<Dependency> dependency;
+
+            @Inject
+            public ProviderInjectConstructor(Provider<Dependency> dependency) {
+                this.dependency = dependency;
+            }
+        }
+
+        static class ProviderInjectField {
+            @Inject
+            Provider<Dependency> dependency;
+        }
+
+        static class ProviderInjectMethod {
+            Provider<Dependency> dependency;
+
+            @Inject
+            void install(Provider<Dependency> dependency) {
+                this.dependency = dependency;
+            }
+        }
+
+        @Test
+        public void should_inject_provider_via_constructor_field_and_method() {
+            Dependency dependency = new Dependency() {
+            };
+            contextConfig.bind(Dependency.class, dependency);
+            contextConfig.bind(ProviderInjectConstructor.class, ProviderInjectConstructor.class);
+            contextConfig.bind(ProviderInjectField.class, ProviderInjectField.class);
+            contextConfig.bind(ProviderInjectMethod.class, ProviderInjectMethod.class);
+            Context context = contextConfig.getContext();
+
+            assertSame(dependency, context.get(ProviderInjectConstructor.class).get().dependency.get());
+            assertSame(dependency, context.get(ProviderInjectField.class).get().dependency.get());
+            assertSame(dependency, context.get(ProviderInjectMethod.class).get().dependency.get());
+        }
+
+        @Test
+        public void should_include_provider_type_in_dependencies() {
+            ConstructorInjectProvider<ProviderInjectField> provider = new ConstructorInjectProvider<>(ProviderInjectField.class);
+            assertArrayEquals(new ComponentRef<?>[]{ComponentRef.providerOf(Dependency.class)}, provider.getDependencies().toArray(ComponentRef[]::new));
+        }
+
+        @Test
+        public void should_throw_exception_if_provided_dependency_not_found() {
+            contextConfig.bind(ProviderInjectField.class, ProviderInjectField.class);
+            DependencyNotFoundException exception = assertThrows(DependencyNotFoundException.class, () -> contextConfig.getContext());
+            assertEquals(Dependency.class, exception.getDependency());
+        }
+
+        static class CountingDependency implements Dependency {
+            static final AtomicInteger constructed = new AtomicInteger();
+
+            public CountingDependency() {
+                constructed.incrementAndGet();
+            }
+        }
+
+        @Test
+        public void should_defer_construction_until_provider_get() {
+            CountingDependency.constructed.set(0);
+            contextConfig.bind(Dependency.class, CountingDependency.class);
+            contextConfig.bind(ProviderInjectField.class, ProviderInjectField.class);
+            ProviderInjectField component = contextConfig.getContext().get(ProviderInjectField.class).get();
+
+            assertEquals(0, CountingDependency.constructed.get());
+            assertTrue(component.dependency.get() instanceof CountingDependency);
+            assertEquals(1, CountingDependency.constructed.get());
+        }
+
+        static class DependencyDependedOnProviderOfComponent implements Dependency {
+            final Provider<Component> component;
+
+            @Inject
+            public DependencyDependedOnProviderOfComponent(Provider<Component> component) {
+                this.component = component;
+            }
+        }
+
+        @Test
+        public void should_not_throw_exception_if_cycle_dependency_via_provider() {
+            contextConfig.bind(Component.class, ComponentWithInjectConstructorImplementation.class);
+            contextConfig.bind(Dependency.class, DependencyDependedOnProviderOfComponent.class);
+            Context context = contextConfig.getContext();
+
+            ComponentWithInjectConstructorImplementation component = (ComponentWithInjectConstructorImplementation) context.get(Component.class).get();
+            DependencyDependedOnProviderOfComponent dependency = (DependencyDependedOnProviderOfComponent) component.getDependency();
+            assertTrue(dependency.component.get() instanceof ComponentWithInjectConstructorImplementation);
+        }
+
+        interface Service {
+            String name();
+        }
+
+        static class CountingService implements Service {
+            static final AtomicInteger constructed = new AtomicInteger();
+
+            public CountingService() {
+                constructed.incrementAndGet();
+            }
+
+            @Override
+            public String name() {
+                return "service";
+            }
+        }
+
+        static class LazyInjectField {
+            @Inject
+            @Lazy
+            Service service;
+        }
+
+        @Test
+        public void should_create_lazy_dependency_on_first_use() {
+            CountingService.constructed.set(0);
+            contextConfig.bind(Service.class, CountingService.class);
+            contextConfig.bind(LazyInjectField.class, LazyInjectField.class);
+            LazyInjectField component = contextConfig.getContext().get(LazyInjectField.class).get();
+
+            assertEquals(0, CountingService.constructed.get());
+            assertEquals("service", component.service.name());
+            assertEquals("service", component.service.name());
+            assertEquals(1, CountingService.constructed.get());
+        }
+
+        @Test
+        public void should_invoke_lazy_dependency_of_non_public_interface_in_other_package() {
+            LazyComponents.constructed.set(0);
+            LazyComponents.bind(contextConfig);
+            LazyComponents.Client client = contextConfig.getContext().get(LazyComponents.Client.class).get();
+
+            assertEquals("hello di", client.greet("di"));
+            assertEquals(1, LazyComponents.constructed.get());
+        }
+
+        @Test
+        public void should_invoke_method_inherited_from_super_interface_of_lazy_dependency() {
+            LazyComponents.bind(contextConfig);
+            LazyComponents.Client client = contextConfig.getContext().get(LazyComponents.Client.class).get();
+
+            assertEquals("counting", client.name());
+            assertEquals("hello di", client.greet("di"));
+        }
+
+        @Test
+        public void should_rethrow_exception_thrown_by_lazy_dependency() {
+            LazyComponents.bind(contextConfig);
+            LazyComponents.Client client = contextConfig.getContext().get(LazyComponents.Client.class).get();
+
+            IllegalStateException exception = assertThrows(IllegalStateException.class, client::fail);
+            assertEquals("failed", exception.getMessage());
+        }
+
+        @Test
+        public void should_not_create_lazy_dependency_for_object_methods() {
+            LazyComponents.constructed.set(0);
+            LazyComponents.bind(contextConfig);
+            Object greeter = contextConfig.getContext().get(LazyComponents.Client.class).get().greeter();
+
+            assertEquals(greeter, greeter);
+            assertEquals(System.identityHashCode(greeter), greeter.hashCode());
+            assertTrue(greeter.toString().contains("Greeter"));
+            assertEquals(0, LazyComponents.constructed.get());
+        }
+
+        static class LazyInjectClass {
+            @Inject
+            @Lazy
+            CountingService service;
+        }
+
+        @Test
+        public void should_throw_exception_if_lazy_dependency_is_not_interface() {
+            assertThrows(IllegalComponentException.class, () -> contextConfig.bind(LazyInjectClass.class, LazyInjectClass.class));
+        }
+    }
+
+    @Nested
+    public class QualifiedBinding {
+        record NamedLiteral(String value) implements Named {
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return Named.class;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                return o instanceof Named named && value.equals(named.value());
+            }
+
+            @Override
+            public int hashCode() {
+                return (127 * "value".hashCode()) ^ value.hashCode();
+            }
+        }
+
+        @Retention(RetentionPolicy.RUNTIME)
+        @interface NotQualifier {
+        }
+
+        record NotQualifierLiteral() implements NotQualifier {
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return NotQualifier.class;
+            }
+        }
+
+        static class InjectQualifiedConstructor {
+            final Dependency dependency;
+
+            @Inject
+            public InjectQualifiedConstructor(@Named("chosen") Dependency dependency) {
+                this.dependency = dependency;
+            }
+        }
+
+        static class InjectQualifiedField {
+            @Inject
+            @Named("chosen")
+            Dependency dependency;
+        }
+
+        @Named("chosen")
+        static class NamedDependency implements Dependency {
+        }
+
+        static class InjectGenericField {
+            @Inject
+            List<String> names;
+        }
+
+        @Test
+        public void should_bind_instance_with_qualifier() {
+            Dependency chosen = new Dependency() {
+            };
+            Dependency other = new Dependency() {
+            };
+            contextConfig.bind(Dependency.class, chosen, new NamedLiteral("chosen"), new NamedLiteral("skywalker"));
+            contextConfig.bind(Dependency.class, other);
+
+            Context context = contextConfig.getContext();
+            assertSame(chosen, context.get(ComponentRef.of(Dependency.class, new NamedLiteral("chosen"))).get());
+            assertSame(chosen, context.get(ComponentRef.of(Dependency.class, new NamedLiteral("skywalker"))).get());
+            assertSame(other, context.get(Dependency.class).get());
+        }
+
+        @Test
+        public void should_inject_qualified_dependency() {
+            Dependency chosen = new Dependency() {
+            };
+            contextConfig.bind(Dependency.class, chosen, new NamedLiteral("chosen"));
+            contextConfig.bind(Dependency.class, new Dependency() {
+            });
+            contextConfig.bind(InjectQualifiedConstructor.class, InjectQualifiedConstructor.class);
+            contextConfig.bind(InjectQualifiedField.class, InjectQualifiedField.class);
+
+            Context context = contextConfig.getContext();
+            assertSame(chosen, context.get(InjectQualifiedConstructor.class).get().dependency);
+            assertSame(chosen, context.get(InjectQualifiedField.class).get().dependency);
+        }
+
+        @Test
+        public void should_retrieve_qualifier_from_implementation() {
+            contextConfig.bind(Dependency.class, NamedDependency.class);
+
+            Context context = contextConfig.getContext();
+            assertTrue(context.get(ComponentRef.of(Dependency.class, new NamedLiteral("chosen"))).get() instanceof NamedDependency);
+            assertTrue(context.get(Dependency.class).isEmpty());
+        }
+
+        @Test
+        public void should_retrieve_qualifier_from_implementation_when_bind_with_scope() {
+            contextConfig.bind(Dependency.class, NamedDependency.class, Singleton.class);
+
+            Context context = contextConfig.getContext();
+            Dependency dependency = context.get(ComponentRef.of(Dependency.class, new NamedLiteral("chosen"))).get();
+            assertTrue(dependency instanceof NamedDependency);
+            assertSame(dependency, context.get(ComponentRef.of(Dependency.class, new NamedLiteral("chosen"))).get());
+            assertTrue(context.get(Dependency.class).isEmpty());
+        }
+
+        @Test
+        public void should_throw_exception_if_qualified_dependency_not_found() {
+            contextConfig.bind(Dependency.class, new Dependency() {
+            });
+            contextConfig.bind(InjectQualifiedConstructor.class, InjectQualifiedConstructor.class);
+
+            DependencyNotFoundException exception = assertThrows(DependencyNotFoundException.class, () -> contextConfig.getContext());
+            assertEquals(ComponentRef.of(Dependency.class, new NamedLiteral("chosen")), exception.getDependencyRef());
+            assertEquals(InjectQualifiedConstructor.class, exception.getComponent());
+        }
+
+        @Test
+        public void should_throw_exception_if_annotation_is_not_qualifier() {
+            assertThrows(IllegalComponentException.class, () -> contextConfig.bind(Dependency.class, new Dependency() {
+            }, new NotQualifierLiteral()));
+        }
+
+        @Test
+        public void should_bind_and_inject_generic_type() {
+            List<String> names = List.of("luke", "leia");
+            contextConfig.bind(new ComponentRef<List<String>>() {
+            }, names);
+            contextConfig.bind(InjectGenericField.class, InjectGenericField.class);
+
+            Context context = contextConfig.getContext();
+            assertSame(names, context.get(new ComponentRef<List<String>>() {
+            }).get());
+            assertSame(names, context.get(InjectGenericField.class).get().names);
+            assertTrue(context.get(new ComponentRef<List<Integer>>() {
+            }).isEmpty());
+        }
+    }
+
+    @Nested
+    public class Multibinding {
+        interface Plugin {
+        }
+
+        @Multibindings.Element(collection = "plugins", index = 1)
+        static class AnnotatedElement {
+        }
+
+        @Test
+        public void should_follow_annotation_contract_for_element_qualifier() {
+            Annotation reflected = AnnotatedElement.class.getAnnotation(Multibindings.Element.class);
+            Annotation literal = Multibindings.element("plugins", 1);
+
+            assertEquals(reflected, literal);
+            assertEquals(literal, reflected);
+            assertEquals(reflected.hashCode(), literal.hashCode());
+            assertEquals(Multibindings.Element.class, literal.annotationType());
+            assertTrue(literal.toString().contains("collection=\"plugins\""));
+            assertFalse(literal.equals(Multibindings.element("plugins", 2)));
+        }
+
+        static class PluginWithDependency implements Plugin {
+            final Dependency dependency;
+
+            @Inject
+            public PluginWithDependency(Dependency dependency) {
+                this.dependency = dependency;
+            }
+        }
+
+        static class PluginHost {
+            @Inject
+            Set<Plugin> set;
+
+            @Inject
+            List<Plugin> list;
+
+            @Inject
+            Map<String, Plugin> map;
+        }
+
+        @Test
+        public void should_inject_contributions_as_set_list_and_map() {
+            Plugin first = new Plugin() {
+            };
+            Plugin second = new Plugin() {
+            };
+            contextConfig.contribute(Plugin.class, first);
+            contextConfig.contribute(Plugin.class, second);
+            contextConfig.contribute(String.class, "first", Plugin.class, first);
+            contextConfig.contribute(String.class, "second", Plugin.class, second);
+            contextConfig.bind(PluginHost.class, PluginHost.class);
+
+            PluginHost host = contextConfig.getContext().get(PluginHost.class).get();
+            assertEquals(List.of(first, second), host.list);
+            assertEquals(Set.of(first, second), host.set);
+            assertEquals(Map.of("first", first, "second", second), host.map);
+        }
+
+        @Test
+        public void should_inject_dependencies_of_contributed_implementation() {
+            Dependency dependency = new Dependency() {
+            };
+            contextConfig.bind(Dependency.class, dependency);
+            contextConfig.contribute(Plugin.class, PluginWithDependency.class);
+
+            List<Plugin> plugins = contextConfig.getContext().get(new ComponentRef<List<Plugin>>() {
+            }).get();
+            assertSame(dependency, ((PluginWithDependency) plugins.get(0)).dependency);
+        }
+
+        @Test
+        public void should_materialize_collection_once_per_context() {
+            contextConfig.contribute(Plugin.class, PluginWithDependency.class);
+            contextConfig.bind(Dependency.class, new Dependency() {
+            });
+            ComponentRef<List<Plugin>> ref = new ComponentRef<>() {
+            };
+
+            Context context = contextConfig.getContext();
+            List<Plugin> plugins = context.get(ref).get();
+            assertSame(plugins, context.get(ref).get());
+            assertNotSame(plugins, contextConfig.getContext().get(ref).get());
+            assertThrows(UnsupportedOperationException.class, () -> plugins.add(new Plugin() {
+            }));
+        }
+
+        @Test
+        public void should_throw_exception_if_dependency_of_contribution_not_found() {
+            contextConfig.contribute(Plugin.class, PluginWithDependency.class);
+
+            DependencyNotFoundException exception = assertThrows(DependencyNotFoundException.class, () -> contextConfig.getContext());
+            assertEquals(Dependency.class, exception.getDependency());
+            assertEquals(Plugin.class, exception.getComponent());
+        }
+
+        @Test
+        public void should_throw_exception_if_map_key_duplicated() {
+            contextConfig.contribute(String.class, "plugin", Plugin.class, new Plugin() {
+            });
+            assertThrows(IllegalComponentException.class, () -> contextConfig.contribute(String.class, "plugin", Plugin.class, new Plugin() {
+            }));
+        }
+
+        @Test
+        public void should_throw_exception_if_collection_also_bound_directly() {
+            contextConfig.contribute(Plugin.class, new Plugin() {
+            });
+            contextConfig.bind(new ComponentRef<List<Plugin>>() {
+            }, List.of());
+            assertThrows(IllegalComponentException.class, () -> contextConfig.getContext());
+        }
+    }
+
+    @Nested
+    public class ChildContext {
+        @Test
+        public void should_get_component_from_parent_if_not_bound_in_child() {
+            Dependency dependency = new Dependency() {
+            };
+            contextConfig.bind(Dependency.class, dependency);
+            Context child = new ContextConfig(contextConfig.getContext()).getContext();
+
+            assertSame(dependency, child.get(Dependency.class).get());
+            assertSame(dependency, child.get(ComponentRef.of(Dependency.class)).get());
+            assertTrue(child.get(Component.class).isEmpty());
+        }
+
+        @Test
+        public void should_override_parent_binding_in_child_only() {
+            Dependency parentDependency = new Dependency() {
+            };
+            Dependency childDependency = new Dependency() {
+            };
+            contextConfig.bind(Dependency.class, parentDependency);
+            Context parent = contextConfig.getContext();
+            ContextConfig childConfig = new ContextConfig(parent);
+            childConfig.bind(Dependency.class, childDependency);
+            Context child = childConfig.getContext();
+
+            assertSame(childDependency, child.get(Dependency.class).get());
+            assertSame(parentDependency, parent.get(Dependency.class).get());
+        }
+
+        @Test
+        public void should_inject_parent_components_into_child_components() {
+            contextConfig.bind(Dependency.class, SingletonDependency.class);
+            Context parent = contextConfig.getContext();
+            ContextConfig childConfig = new ContextConfig(parent);
+            childConfig.bind(Component.class, InjectConstructor.class);
+            Context child = childConfig.getContext();
+
+            assertSame(parent.get(Dependency.class).get(), ((InjectConstructor) child.get(Component.class).get()).dependency);
+        }
+
+        @Test
+        public void should_inherit_scopes_from_parent() {
+            contextConfig.scope(Pooled.class, PooledProvider::new);
+            ContextConfig childConfig = new ContextConfig(contextConfig.getContext());
+            childConfig.bind(Component.class, PooledComponent.class);
+            Context child = childConfig.getContext();
+
+            assertEquals(2, IntStream.range(0, 4).mapToObj(i -> child.get(Component.class).get()).distinct().count());
+        }
+
+        @Test
+        public void should_throw_exception_if_dependency_not_found_in_child_or_parent() {
+            ContextConfig childConfig = new ContextConfig(contextConfig.getContext());
+            childConfig.bind(Component.class, InjectConstructor.class);
+
+            DependencyNotFoundException exception = assertThrows(DependencyNotFoundException.class, childConfig::getContext);
+            assertEquals(Dependency.class, exception.getDependency());
+        }
+
+        @Test
+        public void should_warm_up_child_singletons_depending_on_parent() {
+            contextConfig.bind(Dependency.class, SingletonDependency.class);
+            ContextConfig childConfig = new ContextConfig(contextConfig.getContext());
+            childConfig.bind(Component.class, SingletonInjectConstructor.class);
+
+            Context child = childConfig.getContext(ForkJoinPool.commonPool());
+            assertSame(child.get(Dependency.class).get(), ((SingletonInjectConstructor) child.get(Component.class).get()).dependency);
+        }
+
+        static class InjectConstructor implements Component {
+            final Dependency dependency;
+
+            @Inject
+            public InjectConstructor(Dependency dependency) {
+                this.dependency = dependency;
+            }
+        }
+
+        @Singleton
+        static class SingletonInjectConstructor extends InjectConstructor {
+            @Inject
+            public SingletonInjectConstructor(Dependency dependency) {
+                super(dependency);
+            }
+        }
+
+        @Singleton
+        static class SingletonDependency implements Dependency {
+        }
+
+        @Scope
+        @Retention(RetentionPolicy.RUNTIME)
+        @interface Pooled {
+        }
+
+        @Pooled
+        static class PooledComponent implements Component {
+        }
+
+        static class PooledProvider implements Provider<Object> {
+            private final List<Object> pool = new ArrayList<>();
+            private final AtomicInteger current = new AtomicInteger();
+
+            PooledProvider(Provider<?> unscoped) {
+                for (int i = 0; i < 2; i++) {
+                    pool.add(unscoped.get());
+                }
+            }
+
+            @Override
+            public Object get() {
+                return pool.get(current.getAndIncrement() % pool.size());
+            }
+        }
+    }
+
+    @Nested
+    public class Snapshot {
+        static class SnapshotComponent implements Component {
+            final Dependency dependency;
+
+            @Inject
+            Provider<Dependency> provider;
+
+            @Inject
+            List<Component> plugins;
+
+            @Inject
+            public SnapshotComponent(@Named("chosen") Dependency dependency) {
+                this.dependency = dependency;
+            }
+        }
+
+        @Singleton
+        static class SnapshotPlugin implements Component {
+            Dependency dependency;
+
+            @Inject
+            void inject(Dependency dependency) {
+                this.dependency = dependency;
+            }
+        }
+
+        Dependency chosen = new Dependency() {
+        };
+
+        Dependency other = new Dependency() {
+        };
+
+        Component plugin = new Component() {
+        };
+
+        void registerInstances(ContextConfig config) {
+            config.bind(Dependency.class, chosen, new QualifiedBinding.NamedLiteral("chosen"));
+            config.bind(Dependency.class, other);
+            config.contribute(Component.class, plugin);
+        }
+
+        byte[] export(ContextConfig config) throws IOException {
+            registerInstances(config);
+            config.contribute(Component.class, SnapshotPlugin.class);
+            config.bind(SnapshotComponent.class, SnapshotComponent.class);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            config.export(out);
+            return out.toByteArray();
+        }
+
+        @Test
+        public void should_load_context_from_snapshot_without_registering_classes() throws IOException {
+            byte[] snapshot = export(contextConfig);
+            ContextConfig config = new ContextConfig();
+            registerInstances(config);
+
+            Context context = config.getContext(new ByteArrayInputStream(snapshot));
+            SnapshotComponent component = context.get(SnapshotComponent.class).get();
+            assertSame(chosen, component.dependency);
+            assertSame(other, component.provider.get());
+            assertEquals(2, component.plugins.size());
+            assertSame(plugin, component.plugins.get(0));
+            assertSame(other, ((SnapshotPlugin) component.plugins.get(1)).dependency);
+            assertSame(component.plugins, context.get(SnapshotComponent.class).get().plugins);
+            assertSame(chosen, context.get(ComponentRef.of(Dependency.class, new QualifiedBinding.NamedLiteral("chosen"))).get());
+        }
+
+        @Test
+        public void should_load_snapshot_exported_with_generated_factories() throws IOException {
+            byte[] snapshot = export(new ContextConfig(true));
+            ContextConfig config = new ContextConfig();
+            registerInstances(config);
+
+            assertSame(chosen, config.getContext(new ByteArrayInputStream(snapshot)).get(SnapshotComponent.class).get().dependency);
+        }
+
+        @Test
+        public void should_throw_exception_if_instance_not_registered() throws IOException {
+            byte[] snapshot = export(contextConfig);
+            ContextConfig config = new ContextConfig();
+            config.bind(Dependency.class, other);
+
+            assertThrows(StaleSnapshotException.class, () -> config.getContext(new ByteArrayInputStream(snapshot)));
+        }
+
+        @Test
+        public void should_throw_exception_if_registration_not_in_snapshot() throws IOException {
+            byte[] snapshot = export(contextConfig);
+            ContextConfig config = new ContextConfig();
+            registerInstances(config);
+            config.bind(AnotherDependency.class, new AnotherDependency() {
+            });
+
+            assertThrows(StaleSnapshotException.class, () -> config.getContext(new ByteArrayInputStream(snapshot)));
+        }
+
+        static class AnotherSnapshotComponent extends SnapshotComponent {
+            @Inject
+            public AnotherSnapshotComponent(@Named("chosen") Dependency dependency) {
+                super(dependency);
+            }
+        }
+
+        @Test
+        public void should_load_snapshot_if_registration_unchanged() throws IOException {
+            byte[] snapshot = export(contextConfig);
+            ContextConfig config = new ContextConfig();
+            registerInstances(config);
+            config.contribute(Component.class, SnapshotPlugin.class);
+            config.bind(SnapshotComponent.class, SnapshotComponent.class);
+
+            assertSame(chosen, config.getContext(new ByteArrayInputStream(snapshot)).get(SnapshotComponent.class).get().dependency);
+        }
+
+        @Test
+        public void should_throw_exception_if_rebound_to_another_implementation() throws IOException {
+            byte[] snapshot = export(contextConfig);
+            ContextConfig config = new ContextConfig();
+            registerInstances(config);
+            config.bind(SnapshotComponent.class, AnotherSnapshotComponent.class);
+
+            assertThrows(StaleSnapshotException.class, () -> config.getContext(new ByteArrayInputStream(snapshot)));
+        }
+
+        @Test
+        public void should_throw_exception_if_rebound_with_another_scope() throws IOException {
+            byte[] snapshot = export(contextConfig);
+            ContextConfig config = new ContextConfig();
+            registerInstances(config);
+            config.bind(SnapshotComponent.class, SnapshotComponent.class, Singleton.class);
+
+            assertThrows(StaleSnapshotException.class, () -> config.getContext(new ByteArrayInputStream(snapshot)));
+        }
 
+        @Test
+        public void should_throw_exception_if_class_changed() throws IOException {
+            byte[] snapshot = export(contextConfig);
+            byte[] hash = ByteBuffer.allocate(Long.BYTES).putLong(ContextSnapshot.hash(SnapshotComponent.class)).array();
+            int offset = Collections.indexOfSubList(toList(snapshot), toList(hash));
+            snapshot[offset] ^= 1;
+            ContextConfig config = new ContextConfig();
+            registerInstances(config);
+
+            assertThrows(StaleSnapshotException.class, () -> config.getContext(new ByteArrayInputStream(snapshot)));
+        }
+
+        @Test
+        public void should_not_export_invalid_graph() {
+            contextConfig.bind(SnapshotComponent.class, SnapshotComponent.class);
+
+            assertThrows(DependencyNotFoundException.class, () -> contextConfig.export(new ByteArrayOutputStream()));
+        }
+
+        private List<Byte> toList(byte[] bytes) {
+            List<Byte> result = new ArrayList<>(bytes.length);
+            for (byte b : bytes) {
+                result.add(b);
+            }
+            return result;
+        }
+    }
+
+    @Nested
+    public class AsyncResolution {
+        static CyclicBarrier barrier;
+
+        ExecutorService executor;
+
+        @BeforeEach
+        public void setUp() {
+            barrier = new CyclicBarrier(2);
+            executor = Executors.newFixedThreadPool(4);
+        }
+
+        @AfterEach
+        public void tearDown() {
+            executor.shutdown();
+        }
+
+        /**
+         * 两个依赖都在构造函数中等待对方, 只有并行创建时才能完成
+         */
+        @Singleton
+        static class BlockingDependency implements Dependency {
+            public BlockingDependency() throws Exception {
+                barrier.await(5, TimeUnit.SECONDS);
+            }
+        }
+
+        @Singleton
+        static class BlockingAnotherDependency implements AnotherDependency {
+            public BlockingAnotherDependency() throws Exception {
+                barrier.await(5, TimeUnit.SECONDS);
+            }
+        }
+
+        static class ComponentWithBlockingDependencies implements Component {
+            final Dependency dependency;
+            final AnotherDependency anotherDependency;
+
+            @Inject
+            public ComponentWithBlockingDependencies(Dependency dependency, AnotherDependency anotherDependency) {
+                this.dependency = dependency;
+                this.anotherDependency = anotherDependency;
+            }
+        }
+
+        @Test
+        public void should_create_independent_scoped_dependencies_concurrently() throws Exception {
+            contextConfig.bind(Dependency.class, BlockingDependency.class);
+            contextConfig.bind(AnotherDependency.class, BlockingAnotherDependency.class);
+            contextConfig.bind(Component.class, ComponentWithBlockingDependencies.class);
+            Context context = contextConfig.getContext();
+
+            ComponentWithBlockingDependencies component = (ComponentWithBlockingDependencies) context.getAsync(Component.class, executor).get(5, TimeUnit.SECONDS);
+            assertSame(context.get(Dependency.class).get(), component.dependency);
+            assertSame(context.get(AnotherDependency.class).get(), component.anotherDependency);
+        }
+
+        @Test
+        public void should_wait_for_async_component_without_blocking() throws Exception {
+            CompletableFuture<Dependency> pending = new CompletableFuture<>();
+            AtomicInteger started = new AtomicInteger();
+            contextConfig.bindAsync(Dependency.class, () -> {
+                started.incrementAndGet();
+                return pending;
+            });
+            contextConfig.bind(Component.class, InjectionComponent.class);
+            Context context = contextConfig.getContext();
+
+            CompletableFuture<Component> component = context.getAsync(Component.class, executor);
+            assertFalse(component.isDone());
+            Dependency dependency = new Dependency() {
+            };
+            pending.complete(dependency);
+
+            assertSame(dependency, ((InjectionComponent) component.get(5, TimeUnit.SECONDS)).dependency);
+            assertSame(dependency, context.get(Dependency.class).get());
+            assertEquals(1, started.get());
+        }
+
+        @Test
+        public void should_rethrow_failure_of_async_component() {
+            contextConfig.bindAsync(Dependency.class, () -> CompletableFuture.failedFuture(new IllegalStateException()));
+            Context context = contextConfig.getContext();
+
+            assertThrows(IllegalStateException.class, () -> context.get(Dependency.class));
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> context.getAsync(Dependency.class, executor).get());
+            assertTrue(exception.getCause() instanceof IllegalStateException);
+        }
+
+        @Test
+        public void should_wait_for_async_component_when_get_from_provider() {
+            Dependency dependency = new Dependency() {
+            };
+            ContextConfig.AsyncProvider<Dependency> provider = new ContextConfig.AsyncProvider<>(
+                () -> CompletableFuture.supplyAsync(() -> dependency, executor));
+
+            assertSame(dependency, provider.get(new Object[0]));
+        }
+
+        @Test
+        public void should_rethrow_cause_when_get_failed_async_component_from_provider() {
+            ContextConfig.AsyncProvider<Dependency> provider = new ContextConfig.AsyncProvider<>(
+                () -> CompletableFuture.failedFuture(new IllegalStateException()));
+
+            assertThrows(IllegalStateException.class, () -> provider.get(new Object[0]));
+        }
+
+        @Test
+        public void should_create_transient_dependency_inside_dependent() throws Exception {
+            contextConfig.bind(Dependency.class, TransientDependency.class);
+            contextConfig.bind(Component.class, InjectionComponent.class);
+            Context context = contextConfig.getContext();
+
+            InjectionComponent component = (InjectionComponent) context.getAsync(Component.class, executor).get(5, TimeUnit.SECONDS);
+            assertSame(((TransientDependency) component.dependency).thread, component.thread);
+        }
+
+        @Test
+        public void should_fail_if_component_not_found() {
+            ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> contextConfig.getContext().getAsync(Component.class, executor).get());
+            assertTrue(exception.getCause() instanceof NoSuchElementException);
+        }
+
+        static class InjectionComponent implements Component {
+            final Thread thread = Thread.currentThread();
+
+            @Inject
+            Dependency dependency;
+        }
+
+        static class TransientDependency implements Dependency {
+            final Thread thread = Thread.currentThread();
+        }
+    }
+
+    @Nested
+    public class AllocationFree {
+        static final int ITERATIONS = 10_000;
+
+        com.sun.management.ThreadMXBean threads;
+
+        @BeforeEach
+        public void setup() {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+                threads = bean;
+            }
+        }
+
+        @Test
+        public void should_not_allocate_when_get_existing_singleton() {
+            assumeTrue(threads != null, "thread allocation counting not supported");
+            contextConfig.bind(Dependency.class, SingletonDependency.class, Singleton.class);
+            Context context = contextConfig.getContext();
+
+            assertEquals(0, allocatedPerCall(() -> context.getInstance(Dependency.class)));
+        }
+
+        @Test
+        public void should_only_allocate_component_when_create_with_singleton_dependency() {
+            assumeTrue(threads != null, "thread allocation counting not supported");
+            contextConfig.bind(Dependency.class, SingletonDependency.class, Singleton.class);
+            contextConfig.bind(Component.class, InjectionComponent.class);
+            Context context = contextConfig.getContext();
+
+            assertTrue(allocatedPerCall(() -> context.getInstance(Component.class)) <= 32);
+        }
+
+        @Test
+        public void should_not_allocate_when_recording_fast_resolutions() {
+            assumeTrue(threads != null, "thread allocation counting not supported");
+            contextConfig.instrument(new ResolutionMetrics(Duration.ofDays(1)));
+            contextConfig.bind(Dependency.class, SingletonDependency.class, Singleton.class);
+            Context context = contextConfig.getContext();
+
+            assertEquals(0, allocatedPerCall(() -> context.getInstance(Dependency.class)));
+        }
+
+        @Test
+        public void should_throw_exception_if_component_not_found() {
+            Context context = contextConfig.getContext();
+
+            assertThrows(NoSuchElementException.class, () -> context.getInstance(Component.class));
+            assertThrows(NoSuchElementException.class, () -> context.getInstance(ComponentRef.of(Component.class)));
+        }
+
+        long allocatedPerCall(Supplier<Object> resolve) {
+            for (int i = 0; i < ITERATIONS; i++) resolve.get();
+            long thread = Thread.currentThread().getId();
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < ITERATIONS; i++) resolve.get();
+            return (threads.getThreadAllocatedBytes(thread) - before) / ITERATIONS;
+        }
+
+        static class SingletonDependency implements Dependency {
+        }
+
+        static class InjectionComponent implements Component {
+            final Dependency dependency;
+
+            @Inject
+            public InjectionComponent(Dependency dependency) {
+                this.dependency = dependency;
+            }
+        }
+
+        static final List<String> created = new ArrayList<>();
+
+        static class First {
+            public First() {
+                created.add("first");
+            }
+        }
+
+        static class Second {
+            public Second() {
+                created.add("second");
+            }
+        }
+
+        static class Third {
+            public Third() {
+                created.add("third");
+            }
+        }
+
+        static class Fourth {
+            public Fourth() {
+                created.add("fourth");
+            }
+        }
+
+        static class Fifth {
+            public Fifth() {
+                created.add("fifth");
+            }
+        }
+
+        static class OrderedComponent {
+            @Inject
+            Fourth fourth;
+
+            @Inject
+            public OrderedComponent(First first, Second second, Third third) {
+            }
+
+            @Inject
+            void install(Fifth fifth) {
+            }
+        }
+
+        List<String> creationOrder(boolean instrumented) {
+            created.clear();
+            if (instrumented) {
+                contextConfig.instrument(new ResolutionMetrics(Duration.ofDays(1)));
+            }
+            contextConfig.bind(First.class, First.class);
+            contextConfig.bind(Second.class, Second.class);
+            contextConfig.bind(Third.class, Third.class);
+            contextConfig.bind(Fourth.class, Fourth.class);
+            contextConfig.bind(Fifth.class, Fifth.class);
+            contextConfig.bind(OrderedComponent.class, OrderedComponent.class);
+            contextConfig.getContext().getInstance(OrderedComponent.class);
+            return List.copyOf(created);
+        }
+
+        @Test
+        public void should_resolve_dependencies_in_declaration_order() {
+            assertEquals(List.of("first", "second", "third", "fourth", "fifth"), creationOrder(false));
+        }
+
+        @Test
+        public void should_resolve_dependencies_in_declaration_order_when_instrumented() {
+            assertEquals(List.of("first", "second", "third", "fourth", "fifth"), creationOrder(true));
+        }
+    }
+
+    @Nested
+    public class ComponentScanning {
+        static final String PACKAGE = "di.scan";
+
+        ClassLoader loader = ScannedComponents.class.getClassLoader();
+
+        @Test
+        public void should_register_components_from_index() {
+            contextConfig.scan(loader, PACKAGE);
+            Context context = contextConfig.getContext();
+
+            ScannedComponents.Service service = context.get(ScannedComponents.Service.class).get();
+            assertTrue(service instanceof ScannedComponents.ServiceImplementation);
+            assertSame(context.get(ScannedComponents.RepositoryImplementation.class).get(), service.getRepository());
+            assertTrue(context.get(ScannedComponents.FirstListener.class).isPresent());
+            assertTrue(context.get(ScannedComponents.SecondListener.class).isPresent());
+        }
+
+        @Test
+        public void should_only_register_interface_with_single_implementation() {
+            contextConfig.scan(loader, PACKAGE);
+            Context context = contextConfig.getContext();
+
+            assertFalse(context.get(ScannedComponents.Listener.class).isPresent());
+            assertTrue(context.get(ComponentRef.of(ScannedComponents.Listener.class, new QualifiedBinding.NamedLiteral("audit"))).get()
+                instanceof ScannedComponents.AuditListener);
+        }
+
+        @Test
+        public void should_not_register_class_without_inject_or_not_instantiable() {
+            contextConfig.scan(loader, PACKAGE);
+            Context context = contextConfig.getContext();
+
+            assertFalse(context.get(ScannedComponents.NotComponent.class).isPresent());
+            assertFalse(context.get(ScannedComponents.AbstractComponent.class).isPresent());
+        }
+
+        @Test
+        public void should_not_override_registered_component() {
+            ScannedComponents.Repository repository = new ScannedComponents.Repository() {
+            };
+            contextConfig.bind(ScannedComponents.Repository.class, repository);
+            contextConfig.scan(loader, PACKAGE);
+
+            assertSame(repository, contextConfig.getContext().get(ScannedComponents.Service.class).get().getRepository());
+        }
+
+        @Test
+        public void should_export_alias_to_snapshot() throws IOException {
+            contextConfig.scan(loader, PACKAGE);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            contextConfig.export(out);
+
+            ContextConfig config = new ContextConfig();
+            config.scan(loader, PACKAGE);
+            Context context = config.getContext(new ByteArrayInputStream(out.toByteArray()));
+
+            assertSame(context.get(ScannedComponents.RepositoryImplementation.class).get(), context.get(ScannedComponents.Repository.class).get());
+        }
+
+        @Test
+        public void should_scan_class_files_in_jar_without_index() throws Exception {
+            Path jar = Files.createTempFile("scan", ".jar");
+            try {
+                try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+                    out.putNextEntry(new JarEntry("di/scan/"));
+                    boolean stored = false;
+                    for (Class<?> component : ScannedComponents.class.getClasses()) {
+                        byte[] bytes = classFile(component);
+                        JarEntry entry = new JarEntry(component.getName().replace('.', '/') + ".class");
+                        // 交替使用不压缩和压缩的条目
+                        if (stored = !stored) {
+                            CRC32 crc = new CRC32();
+                            crc.update(bytes);
+                            entry.setMethod(JarEntry.STORED);
+                            entry.setSize(bytes.length);
+                            entry.setCompressedSize(bytes.length);
+                            entry.setCrc(crc.getValue());
+                        }
+                        out.putNextEntry(entry);
+                        out.write(bytes);
+                    }
+                }
+
+                List<String> components = ComponentScanner.scanJar(jar, "di/scan");
+
+                assertEquals(Set.of(ScannedComponents.RepositoryImplementation.class.getName(), ScannedComponents.ServiceImplementation.class.getName(),
+                        ScannedComponents.FirstListener.class.getName(), ScannedComponents.SecondListener.class.getName(),
+                        ScannedComponents.AuditListener.class.getName(), ScannedComponents.AbstractComponent.class.getName()),
+                    new HashSet<>(components));
+            } finally {
+                Files.delete(jar);
+            }
+        }
+
+        @Test
+        public void should_scan_class_files_in_directory_without_index() throws Exception {
+            Path root = Paths.get(ScannedComponents.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+            List<String> components = ComponentScanner.scanDirectory(root, "di/scan");
+
+            assertTrue(components.contains(ScannedComponents.ServiceImplementation.class.getName()));
+            assertFalse(components.contains(ScannedComponents.NotComponent.class.getName()));
+            assertFalse(components.contains(ScannedComponents.Service.class.getName()));
+        }
+
+        private byte[] classFile(Class<?> component) throws IOException {
+            String name = component.getName();
+            try (InputStream in = component.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+                return in.readAllBytes();
+            }
+        }
+    }
+
+    @Nested
+    public class Instrumentation {
+
+        @Test
+        public void should_record_resolutions_and_creations_per_component() {
+            ResolutionMetrics metrics = new ResolutionMetrics(Duration.ofDays(1));
+            contextConfig.instrument(metrics);
+            contextConfig.bind(Component.class, ComponentWithInjectConstructorImplementation.class);
+            contextConfig.bind(Dependency.class, LifecycleManagement.SingletonDependency.class);
+            Context context = contextConfig.getContext();
+
+            context.get(Component.class).get();
+            context.get(Component.class).get();
+
+            ResolutionMetrics.Snapshot snapshot = metrics.snapshot();
+            assertEquals(2, snapshot.component(Component.class).resolutions());
+            assertEquals(2, snapshot.component(Component.class).creations());
+            assertEquals(2, snapshot.component(Dependency.class).resolutions());
+            assertEquals(1, snapshot.component(Dependency.class).creations());
+            assertEquals(2, Arrays.stream(snapshot.component(Component.class).latencyBuckets()).sum());
+            assertTrue(snapshot.slowResolutions().isEmpty());
+        }
+
+        @Test
+        public void should_keep_resolution_tree_of_slow_resolutions() {
+            ResolutionMetrics metrics = new ResolutionMetrics(Duration.ZERO);
+            contextConfig.instrument(metrics);
+            contextConfig.bind(Component.class, ComponentWithInjectConstructorImplementation.class);
+            contextConfig.bind(Dependency.class, DependencyWithInjectConstructor.class);
+            contextConfig.bind(String.class, "indirect dependency");
+
+            contextConfig.getContext().get(Component.class).get();
+
+            List<ResolutionMetrics.Trace> traces = metrics.snapshot().slowResolutions();
+            assertEquals(1, traces.size());
+            ResolutionMetrics.Trace trace = traces.get(0);
+            assertEquals(ComponentRef.of(Component.class), trace.component());
+            assertEquals(ComponentRef.of(Dependency.class), trace.dependencies().get(0).component());
+            assertEquals(ComponentRef.of(String.class), trace.dependencies().get(0).dependencies().get(0).component());
+        }
+
+        @Test
+        public void should_not_record_if_not_instrumented() {
+            ResolutionMetrics metrics = new ResolutionMetrics(Duration.ZERO);
+            contextConfig.bind(Component.class, ComponentWithDefaultConstructorImplementation.class);
+            contextConfig.getContext().get(Component.class).get();
+
+            assertTrue(metrics.snapshot().components().isEmpty());
+        }
+
+        @Test
+        public void should_not_expose_mutable_latency_buckets() {
+            ResolutionMetrics metrics = new ResolutionMetrics(Duration.ofDays(1));
+            contextConfig.instrument(metrics);
+            contextConfig.bind(Component.class, ComponentWithDefaultConstructorImplementation.class);
+            contextConfig.getContext().get(Component.class).get();
+
+            ResolutionMetrics.ComponentSnapshot snapshot = metrics.snapshot().component(Component.class);
+            Arrays.fill(snapshot.latencyBuckets(), 100);
+
+            assertEquals(1, Arrays.stream(snapshot.latencyBuckets()).sum());
+        }
+
+        @Test
+        public void should_keep_resolution_trees_of_consecutive_slow_resolutions() {
+            ResolutionMetrics metrics = new ResolutionMetrics(Duration.ZERO);
+            contextConfig.instrument(metrics);
+            contextConfig.bind(Component.class, ComponentWithInjectConstructorImplementation.class);
+            contextConfig.bind(Dependency.class, DependencyWithInjectConstructor.class);
+            contextConfig.bind(String.class, "indirect dependency");
+            Context context = contextConfig.getContext();
+
+            context.get(Component.class).get();
+            context.get(Dependency.class).get();
+
+            List<ResolutionMetrics.Trace> traces = metrics.snapshot().slowResolutions();
+            assertEquals(2, traces.size());
+            assertEquals(1, traces.get(0).dependencies().size());
+            assertEquals(ComponentRef.of(Dependency.class), traces.get(1).component());
+            assertEquals(ComponentRef.of(String.class), traces.get(1).dependencies().get(0).component());
+            assertTrue(traces.get(1).dependencies().get(0).dependencies().isEmpty());
+        }
+
+        @Test
+        public void should_put_latency_into_power_of_two_buckets() {
+            assertEquals(0, ResolutionMetrics.bucket(0));
+            assertEquals(0, ResolutionMetrics.bucket(1));
+            assertEquals(1, ResolutionMetrics.bucket(3));
+            assertEquals(10, ResolutionMetrics.bucket(1024));
+        }
+    }
+
+    @Nested
+    public class GeneratedFactoryMode {
+
+        @BeforeEach
+        public void setUp() {
+            contextConfig = new ContextConfig(true);
+        }
+
+        @Test
+        public void should_generate_factory_for_component_with_inject_members() {
+            assertTrue(GeneratedFactories.find(ComponentWithInjectConstructorImplementation.class).isPresent());
+        }
+
+        @Test
+        public void should_create_component_via_generated_factory() {
+            Dependency dependency = new Dependency() {
+            };
+            contextConfig.bind(Component.class, ComponentWithInjectConstructorImplementation.class);
+            contextConfig.bind(Dependency.class, dependency);
+
+            Component instance = contextConfig.getContext().get(Component.class).get();
+            assertSame(dependency, ((ComponentWithInjectConstructorImplementation) instance).getDependency());
+        }
+
+        @Test
+        public void should_fallback_to_reflection_if_no_factory_generated() {
+            assertFalse(GeneratedFactories.find(ComponentWithDefaultConstructorImplementation.class).isPresent());
+            contextConfig.bind(Component.class, ComponentWithDefaultConstructorImplementation.class);
+
+            assertTrue(contextConfig.getContext().get(Component.class).get() instanceof ComponentWithDefaultConstructorImplementation);
+        }
+
+        @Test
+        public void should_check_dependencies_declared_by_generated_factory() {
+            contextConfig.bind(Component.class, ComponentWithInjectConstructorImplementation.class);
+            contextConfig.bind(Dependency.class, DependencyDependedOnComponent.class);
+            assertThrows(CycleDependenciesFoundException.class, () -> contextConfig.getContext());
+        }
+    }
+
+    @Nested
+    public class LifecycleManagement {
+
+        @Nested
+        public class Shutdown {
+            static final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+            @BeforeEach
+            public void setUp() {
+                events.clear();
+            }
+
+            static class PostConstructBase {
+                @PostConstruct
+                void initBase() {
+                    events.add("base");
+                }
+            }
+
+            static class PostConstructComponent extends PostConstructBase implements Component {
+                @Inject
+                Dependency dependency;
+
+                @PostConstruct
+                void init() {
+                    events.add(dependency == null ? "not injected" : "init");
+                }
+            }
+
+            @Test
+            public void should_call_post_construct_after_injection_superclass_first() {
+                Dependency dependency = new Dependency() {
+                };
+                contextConfig.bind(Dependency.class, dependency);
+                contextConfig.bind(Component.class, PostConstructComponent.class);
+
+                contextConfig.getContext().get(Component.class).get();
+
+                assertEquals(List.of("base", "init"), events);
+            }
+
+            @Test
+            public void should_not_generate_factory_for_component_with_post_construct() {
+                assertFalse(GeneratedFactories.find(PostConstructComponent.class).isPresent());
+            }
+
+            static class IllegalPostConstruct implements Component {
+                @PostConstruct
+                void init(Dependency dependency) {
+                }
+            }
+
+            @Test
+            public void should_throw_exception_if_lifecycle_method_has_parameters() {
+                assertThrows(IllegalComponentException.class, () -> {
+                    contextConfig.bind(Component.class, IllegalPostConstruct.class);
+                    contextConfig.getContext().get(Component.class);
+                });
+            }
+
+            @Singleton
+            static class IllegalPreDestroy implements Component {
+                @PreDestroy
+                void destroy(String reason) {
+                }
+            }
+
+            @Test
+            public void should_throw_exception_when_bind_if_pre_destroy_has_parameters() {
+                assertThrows(IllegalComponentException.class, () -> contextConfig.bind(Component.class, IllegalPreDestroy.class));
+            }
+
+            @Singleton
+            static class DestroyedDependency implements Dependency {
+                @PreDestroy
+                void destroy() {
+                    events.add("dependency");
+                }
+            }
+
+            @Singleton
+            static class DestroyedComponent implements Component {
+                @Inject
+                public DestroyedComponent(Dependency dependency) {
+                }
+
+                @PreDestroy
+                void destroy() {
+                    events.add("component");
+                }
+            }
+
+            @Test
+            public void should_destroy_components_in_reverse_dependency_order() {
+                contextConfig.bind(Dependency.class, DestroyedDependency.class);
+                contextConfig.bind(Component.class, DestroyedComponent.class);
+                Container container = new Container(contextConfig.getContext());
+                container.get(Component.class).get();
+
+                container.close();
+
+                assertEquals(List.of("component", "dependency"), events);
+            }
+
+            @Singleton
+            static class ClosableComponent implements Component, AutoCloseable {
+                @Override
+                public void close() {
+                    events.add("closed");
+                }
+            }
+
+            @Test
+            public void should_close_auto_closeable_component() {
+                contextConfig.bind(Component.class, ClosableComponent.class);
+                Container container = new Container(contextConfig.getContext());
+                container.get(Component.class).get();
+
+                container.close();
+
+                assertEquals(List.of("closed"), events);
+            }
+
+            @Test
+            public void should_not_destroy_bound_instance_or_component_not_created() {
+                contextConfig.bind(Component.class, new ClosableComponent());
+                contextConfig.bind(Dependency.class, DestroyedDependency.class);
+                Container container = new Container(contextConfig.getContext());
+                container.get(Component.class).get();
+
+                container.close();
+
+                assertEquals(List.of(), events);
+            }
+
+            static class PrototypeComponent implements Component, AutoCloseable {
+                @Override
+                public void close() {
+                    events.add("prototype");
+                }
+            }
+
+            @Test
+            public void should_not_destroy_component_without_singleton_scope() {
+                contextConfig.bind(Component.class, PrototypeComponent.class);
+                Container container = new Container(contextConfig.getContext());
+                container.get(Component.class).get();
+
+                container.close();
+
+                assertEquals(List.of(), events);
+            }
+
+            static CyclicBarrier barrier;
+
+            @Singleton
+            static class ParallelComponent implements Component {
+                @PreDestroy
+                void destroy() throws Exception {
+                    barrier.await(5, TimeUnit.SECONDS);
+                }
+            }
+
+            @Singleton
+            static class ParallelDependency implements Dependency {
+                @PreDestroy
+                void destroy() throws Exception {
+                    barrier.await(5, TimeUnit.SECONDS);
+                }
+            }
+
+            @Test
+            public void should_destroy_independent_components_in_parallel() {
+                barrier = new CyclicBarrier(2);
+                contextConfig.bind(Component.class, ParallelComponent.class);
+                contextConfig.bind(Dependency.class, ParallelDependency.class);
+                Container container = new Container(contextConfig.getContext());
+                container.get(Component.class).get();
+                container.get(Dependency.class).get();
+
+                container.close();
+            }
+
+            @Singleton
+            static class BlockingComponent implements Component {
+                @Inject
+                public BlockingComponent(Dependency dependency) {
+                }
+
+                @PreDestroy
+                void destroy() throws InterruptedException {
+                    new CountDownLatch(1).await();
+                }
+            }
+
+            @Test
+            public void should_stop_destroying_after_shutdown_deadline() {
+                contextConfig.bind(Component.class, BlockingComponent.class);
+                contextConfig.bind(Dependency.class, DestroyedDependency.class);
+                Container container = new Container(contextConfig.getContext(), Duration.ofMillis(100));
+                container.get(Component.class).get();
+
+                IllegalStateException exception = assertThrows(IllegalStateException.class, container::close);
+
+                assertTrue(exception.getMessage().contains(Dependency.class.getName()));
+                assertEquals(List.of(), events);
+            }
+
+            @Singleton
+            static class FailingComponent implements Component {
+                @Inject
+                public FailingComponent(Dependency dependency) {
+                }
+
+                @PreDestroy
+                void destroy() {
+                    throw new IllegalStateException("failed");
+                }
+            }
+
+            @Test
+            public void should_destroy_other_components_if_one_failed() {
+                contextConfig.bind(Component.class, FailingComponent.class);
+                contextConfig.bind(Dependency.class, DestroyedDependency.class);
+                Container container = new Container(contextConfig.getContext());
+                container.get(Component.class).get();
+
+                IllegalStateException exception = assertThrows(IllegalStateException.class, container::close);
+
+                assertEquals("failed", exception.getMessage());
+                assertEquals(List.of("dependency"), events);
+            }
+
+            @Test
+            public void should_not_get_component_after_closed() {
+                contextConfig.bind(Component.class, ClosableComponent.class);
+                Container container = new Container(contextConfig.getContext());
+                container.get(Component.class).get();
+                container.close();
+                container.close();
+
+                assertThrows(IllegalStateException.class, () -> container.get(Component.class));
+                assertEquals(List.of("closed"), events);
+            }
+
+            @Test
+            public void should_only_destroy_components_created_by_child_context() {
+                contextConfig.bind(Dependency.class, DestroyedDependency.class);
+                Context context = contextConfig.getContext();
+                Container parent = new Container(context);
+                ContextConfig childConfig = new ContextConfig(context);
+                childConfig.bind(Component.class, DestroyedComponent.class);
+                Container child = new Container(childConfig.getContext());
+                child.get(Component.class).get();
+
+                child.close();
+                assertEquals(List.of("component"), events);
+                parent.close();
+                assertEquals(List.of("component", "dependency"), events);
+            }
+        }
+
+        @Nested
+        public class OperationScoping {
+            OperationScope operations;
+
+            @BeforeEach
+            public void setUp() {
+                operations = new OperationScope();
+                contextConfig.scope(OperationScoped.class, operations);
+            }
+
+            @OperationScoped
+            static class OperationComponent implements Component {
+            }
+
+            @OperationScoped
+            static class OperationDependency implements Dependency {
+                final Component component;
+
+                @Inject
+                public OperationDependency(Component component) {
+                    this.component = component;
+                }
+            }
+
+            @Test
+            public void should_share_instance_within_operation() {
+                contextConfig.bind(Component.class, OperationComponent.class);
+                contextConfig.bind(Dependency.class, OperationDependency.class);
+                Context context = contextConfig.getContext();
+
+                try (OperationScope.Operation operation = operations.open()) {
+                    operation.run(() -> {
+                        Component component = context.get(Component.class).get();
+                        assertSame(component, context.get(Component.class).get());
+                        assertSame(component, ((OperationDependency) context.get(Dependency.class).get()).component);
+                    });
+                }
+            }
+
+            @Test
+            public void should_create_new_instance_for_each_operation() {
+                contextConfig.bind(Component.class, OperationComponent.class);
+                Context context = contextConfig.getContext();
+
+                try (OperationScope.Operation first = operations.open(); OperationScope.Operation second = operations.open()) {
+                    Component component = first.supply(() -> context.get(Component.class).get());
+                    assertNotSame(component, second.supply(() -> context.get(Component.class).get()));
+                    assertSame(component, first.supply(() -> second.supply(() -> first.supply(() -> context.get(Component.class).get()))));
+                }
+            }
+
+            @Test
+            public void should_share_operation_across_threads() throws Exception {
+                contextConfig.bind(Component.class, OperationComponent.class);
+                Context context = contextConfig.getContext();
+                ExecutorService executor = Executors.newFixedThreadPool(4);
+                try (OperationScope.Operation operation = operations.open()) {
+                    Set<Component> instances = ConcurrentHashMap.newKeySet();
+                    List<Future<?>> futures = new ArrayList<>();
+                    for (int i = 0; i < 16; i++) {
+                        futures.add(executor.submit(operation.wrap(() -> instances.add(context.get(Component.class).get()))));
+                    }
+                    for (Future<?> future : futures) {
+                        future.get();
+                    }
+                    assertEquals(1, instances.size());
+                } finally {
+                    executor.shutdown();
+                }
+            }
+
+            static CountDownLatch componentStarted;
+
+            static CountDownLatch dependencyStarted;
+
+            /**
+             * 两个组件在构造时互相等待, 只有同时创建才能完成
+             */
+            @OperationScoped
+            static class WaitingComponent implements Component {
+                final boolean concurrent;
+
+                public WaitingComponent() throws InterruptedException {
+                    componentStarted.countDown();
+                    concurrent = dependencyStarted.await(5, TimeUnit.SECONDS);
+                }
+            }
+
+            @OperationScoped
+            static class WaitingDependency implements Dependency {
+                final boolean concurrent;
+
+                public WaitingDependency() throws InterruptedException {
+                    dependencyStarted.countDown();
+                    concurrent = componentStarted.await(5, TimeUnit.SECONDS);
+                }
+            }
+
+            @Test
+            public void should_create_different_components_of_operation_concurrently() throws Exception {
+                componentStarted = new CountDownLatch(1);
+                dependencyStarted = new CountDownLatch(1);
+                contextConfig.bind(Component.class, WaitingComponent.class);
+                contextConfig.bind(Dependency.class, WaitingDependency.class);
+                Context context = contextConfig.getContext();
+                ExecutorService executor = Executors.newFixedThreadPool(2);
+                try (OperationScope.Operation operation = operations.open()) {
+                    Future<Component> component = executor.submit(() -> operation.supply(() -> context.get(Component.class).get()));
+                    Future<Dependency> dependency = executor.submit(() -> operation.supply(() -> context.get(Dependency.class).get()));
+
+                    assertTrue(((WaitingComponent) component.get()).concurrent);
+                    assertTrue(((WaitingDependency) dependency.get()).concurrent);
+                } finally {
+                    executor.shutdown();
+                }
+            }
+
+            @Test
+            public void should_throw_exception_if_no_active_operation() {
+                contextConfig.bind(Component.class, OperationComponent.class);
+                Context context = contextConfig.getContext();
+
+                assertThrows(IllegalStateException.class, () -> context.get(Component.class));
+                OperationScope.Operation operation = operations.open();
+                operation.run(() -> context.get(Component.class));
+                assertThrows(IllegalStateException.class, () -> context.get(Component.class));
+            }
+
+            @Test
+            public void should_throw_exception_if_operation_closed() {
+                contextConfig.bind(Component.class, OperationComponent.class);
+                Context context = contextConfig.getContext();
+
+                OperationScope.Operation operation = operations.open();
+                operation.close();
+                assertThrows(IllegalStateException.class, () -> operation.run(() -> context.get(Component.class)));
+            }
+        }
+
+        @Test
+        public void should_not_be_singleton_scope_by_default() {
+            contextConfig.bind(Component.class, ComponentWithDefaultConstructorImplementation.class);
+            Context context = contextConfig.getContext();
+            assertNotSame(context.get(Component.class).get(), context.get(Component.class).get());
+        }
+
+        @Test
+        public void should_bind_component_as_singleton_scoped() {
+            contextConfig.bind(Component.class, ComponentWithDefaultConstructorImplementation.class, Singleton.class);
+            Context context = contextConfig.getContext();
+            assertSame(context.get(Component.class).get(), context.get(Component.class).get());
+        }
+
+        @Singleton
+        static class SingletonComponent implements Component {
+        }
+
+        @Test
+        public void should_retrieve_scope_annotation_from_component() {
+            contextConfig.bind(Component.class, SingletonComponent.class);
+            Context context = contextConfig.getContext();
+            assertSame(context.get(Component.class).get(), context.get(Component.class).get());
+        }
+
+        @Test
+        public void should_share_singleton_when_injected_as_dependency() {
+            contextConfig.bind(Component.class, ComponentWithInjectConstructorImplementation.class);
+            contextConfig.bind(Dependency.class, SingletonDependency.class);
+            Context context = contextConfig.getContext();
+
+            ComponentWithInjectConstructorImplementation first = (ComponentWithInjectConstructorImplementation) context.get(Component.class).get();
+            ComponentWithInjectConstructorImplementation second = (ComponentWithInjectConstructorImplementation) context.get(Component.class).get();
+            assertNotSame(first, second);
+            assertSame(first.getDependency(), second.getDependency());
+        }
+
+        @Singleton
+        static class SingletonDependency implements Dependency {
+        }
+
+        @Retention(RetentionPolicy.RUNTIME)
+        @Scope
+        @interface Pooled {
+        }
+
+        static class PooledProvider implements Provider<Object> {
+            private final List<Object> pool = new ArrayList<>();
+            private int current;
+
+            PooledProvider(Provider<?> unscoped) {
+                for (int i = 0; i < 2; i++) {
+                    pool.add(unscoped.get());
+                }
+            }
+
+            @Override
+            public Object get() {
+                return pool.get(current++ % pool.size());
+            }
+        }
+
+        @Pooled
+        static class PooledComponent implements Component {
+        }
+
+        @Test
+        public void should_bind_component_to_customize_scope() {
+            contextConfig.scope(Pooled.class, PooledProvider::new);
+            contextConfig.bind(Component.class, PooledComponent.class);
+            Context context = contextConfig.getContext();
+
+            List<Component> instances = IntStream.range(0, 4).mapToObj(i -> context.get(Component.class).get()).toList();
+            assertEquals(2, new HashSet<>(instances).size());
+            assertSame(instances.get(0), instances.get(2));
+        }
+
+        @Test
+        public void should_throw_exception_if_scope_not_defined() {
+            contextConfig.bind(Component.class, PooledComponent.class);
+            assertThrows(IllegalComponentException.class, () -> contextConfig.getContext());
+        }
+
+        @Singleton
+        @Pooled
+        static class MultiScopeComponent implements Component {
+        }
+
+        @Test
+        public void should_throw_exception_if_multi_scope_annotated() {
+            assertThrows(IllegalComponentException.class, () -> contextConfig.bind(Component.class, MultiScopeComponent.class));
+        }
+
+        @Singleton
+        static class SlowSingletonComponent implements Component {
+            static final AtomicInteger constructed = new AtomicInteger();
+
+            public SlowSingletonComponent() {
+                constructed.incrementAndGet();
+                Thread.yield();
+            }
+        }
+
+        @Singleton
+        static class CountingSingletonDependency implements Dependency {
+            static final AtomicInteger constructed = new AtomicInteger();
+
+            public CountingSingletonDependency() {
+                constructed.incrementAndGet();
+            }
+        }
+
+        static class CountingComponent implements Component {
+            static final AtomicInteger constructed = new AtomicInteger();
+
+            @Inject
+            public CountingComponent(Dependency dependency) {
+                constructed.incrementAndGet();
+            }
+        }
+
+        @Test
+        public void should_create_singletons_eagerly_when_warm_up() {
+            CountingSingletonDependency.constructed.set(0);
+            CountingComponent.constructed.set(0);
+            contextConfig.bind(Dependency.class, CountingSingletonDependency.class);
+            contextConfig.bind(Component.class, CountingComponent.class);
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                Context context = contextConfig.getContext(pool);
+                assertEquals(1, CountingSingletonDependency.constructed.get());
+                assertEquals(0, CountingComponent.constructed.get());
+
+                context.get(Component.class).get();
+                assertEquals(1, CountingSingletonDependency.constructed.get());
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        @Singleton
+        static class FailingComponent implements Component {
+            public FailingComponent() {
+                throw new IllegalStateException("component");
+            }
+        }
+
+        @Singleton
+        static class FailingDependency implements Dependency {
+            public FailingDependency() {
+                throw new IllegalStateException("dependency");
+            }
+        }
+
+        @Test
+        public void should_report_warm_up_failures_in_deterministic_order() {
+            contextConfig.bind(Component.class, FailingComponent.class);
+            contextConfig.bind(Dependency.class, FailingDependency.class);
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                IllegalStateException exception = assertThrows(IllegalStateException.class, () -> contextConfig.getContext(pool));
+                assertEquals("component", exception.getMessage());
+                assertEquals(1, exception.getSuppressed().length);
+                assertEquals("dependency", exception.getSuppressed()[0].getMessage());
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        @Test
+        public void should_construct_singleton_exactly_once_under_concurrent_resolution() throws Exception {
+            SlowSingletonComponent.constructed.set(0);
+            contextConfig.bind(Component.class, SlowSingletonComponent.class);
+            Context context = contextConfig.getContext();
+
+            int threads = 32;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            try {
+                List<Future<Component>> futures = new ArrayList<>();
+                for (int i = 0; i < threads * 8; i++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        return context.get(Component.class).get();
+                    }));
+                }
+                start.countDown();
+                Set<Component> instances = new HashSet<>();
+                for (Future<Component> future : futures) {
+                    instances.add(future.get());
+                }
+                assertEquals(1, instances.size());
+                assertEquals(1, SlowSingletonComponent.constructed.get());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
     }
 }
 
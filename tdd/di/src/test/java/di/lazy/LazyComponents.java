@@ -0,0 +1,74 @@
+package di.lazy;
+
+import di.ContextConfig;
+import di.Lazy;
+import jakarta.inject.Inject;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 延迟代理使用的组件, 依赖的接口在其他包中且不是 public
+ */
+public class LazyComponents {
+
+    public static final AtomicInteger constructed = new AtomicInteger();
+
+    interface Named {
+        String name();
+    }
+
+    interface Greeter extends Named {
+        String greet(String name);
+
+        void fail();
+    }
+
+    static class CountingGreeter implements Greeter {
+        @Inject
+        CountingGreeter() {
+            constructed.incrementAndGet();
+        }
+
+        @Override
+        public String greet(String name) {
+            return "hello " + name;
+        }
+
+        @Override
+        public void fail() {
+            throw new IllegalStateException("failed");
+        }
+
+        @Override
+        public String name() {
+            return "counting";
+        }
+    }
+
+    public static class Client {
+        @Inject
+        @Lazy
+        Greeter greeter;
+
+        public String greet(String name) {
+            return greeter.greet(name);
+        }
+
+        public void fail() {
+            greeter.fail();
+        }
+
+        public String name() {
+            return greeter.name();
+        }
+
+        public Object greeter() {
+            return greeter;
+        }
+    }
+
+    public static void bind(ContextConfig config) {
+        config.bind(Greeter.class, CountingGreeter.class);
+        config.bind(Client.class, Client.class);
+    }
+}
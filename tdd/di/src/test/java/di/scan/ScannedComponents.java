@@ -0,0 +1,68 @@
+package di.scan;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+
+/**
+ * 组件扫描使用的组件, 与其他测试组件放在不同的包中
+ */
+public class ScannedComponents {
+
+    public interface Repository {
+    }
+
+    @Singleton
+    public static class RepositoryImplementation implements Repository {
+        @Inject
+        public RepositoryImplementation() {
+        }
+    }
+
+    public interface Service {
+        Repository getRepository();
+    }
+
+    public static class ServiceImplementation implements Service {
+        private final Repository repository;
+
+        @Inject
+        public ServiceImplementation(Repository repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public Repository getRepository() {
+            return repository;
+        }
+    }
+
+    public interface Listener {
+    }
+
+    public static class FirstListener implements Listener {
+        @Inject
+        Repository repository;
+    }
+
+    public static class SecondListener implements Listener {
+        @Inject
+        void install(Repository repository) {
+        }
+    }
+
+    @Named("audit")
+    public static class AuditListener implements Listener {
+        @Inject
+        public AuditListener() {
+        }
+    }
+
+    public static class NotComponent implements Listener {
+    }
+
+    public abstract static class AbstractComponent {
+        @Inject
+        Repository repository;
+    }
+}